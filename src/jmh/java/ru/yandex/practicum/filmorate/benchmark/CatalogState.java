@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.service.FilmDbService;
+import ru.yandex.practicum.filmorate.service.UserDbService;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.index.PopularityIndex;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Приложение без веб-слоя поверх H2 в памяти, заполненное заданным количеством фильмов, пользователей,
+ * лайков и дружб. Данные генерируются детерминированно, популярность фильмов смещена к первым id.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+    private static final int SEED_BATCH_SIZE = 5000;
+    private static final int MPA_COUNT = 5;
+    private static final int GENRE_COUNT = 6;
+
+    @Param("10000")
+    public int films;
+    @Param("10000")
+    public int users;
+    @Param("20")
+    public int likesPerUser;
+    @Param("50")
+    public int friendsPerUser;
+
+    ConfigurableApplicationContext context;
+    FilmDbService filmService;
+    UserDbService userService;
+    private long firstFilmId;
+    private long firstUserId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN")
+                .run();
+        filmService = context.getBean(FilmDbService.class);
+        userService = context.getBean(UserDbService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seed(jdbcTemplate);
+        context.getBean(FriendGraph.class).rebuild();
+        context.getBean(FilmSearchIndex.class).rebuild();
+        context.getBean(PopularityIndex.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    long randomFilmId() {
+        return firstFilmId + ThreadLocalRandom.current().nextInt(films);
+    }
+
+    long randomUserId() {
+        return firstUserId + ThreadLocalRandom.current().nextInt(users);
+    }
+
+    long neighbourOf(long userId) {
+        return firstUserId + (userId - firstUserId + 1) % users;
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            rows.add(new Object[]{"user" + i + "@benchmark.ru", "user" + i, "Пользователь " + i,
+                    Date.valueOf(LocalDate.of(1970, 1, 1).plusDays(i % 15000))});
+            flushIfFull(jdbcTemplate, "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)", rows);
+        }
+        flush(jdbcTemplate, "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)", rows);
+        for (int i = 0; i < films; i++) {
+            rows.add(new Object[]{"Фильм " + i, "Описание фильма " + i,
+                    Date.valueOf(LocalDate.of(1950, 1, 1).plusDays(i % 25000)), 60 + i % 120, 1 + i % MPA_COUNT});
+            flushIfFull(jdbcTemplate, "INSERT INTO films (name, description, release_date, duration, mpa_id) "
+                    + "VALUES (?, ?, ?, ?, ?)", rows);
+        }
+        flush(jdbcTemplate, "INSERT INTO films (name, description, release_date, duration, mpa_id) "
+                + "VALUES (?, ?, ?, ?, ?)", rows);
+        firstUserId = jdbcTemplate.queryForObject("SELECT MIN(user_id) FROM users", Long.class);
+        firstFilmId = jdbcTemplate.queryForObject("SELECT MIN(film_id) FROM films", Long.class);
+
+        for (int i = 0; i < films; i++) {
+            rows.add(new Object[]{firstFilmId + i, 1 + i % GENRE_COUNT});
+            if (i % 3 == 0) {
+                rows.add(new Object[]{firstFilmId + i, 1 + (i + 1) % GENRE_COUNT});
+            }
+            flushIfFull(jdbcTemplate, "INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)", rows);
+        }
+        flush(jdbcTemplate, "INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)", rows);
+
+        int likes = Math.min(likesPerUser, films);
+        for (int i = 0; i < users; i++) {
+            int start = (int) (films * Math.pow(random.nextDouble(), 3));
+            for (int k = 0; k < likes; k++) {
+                rows.add(new Object[]{firstFilmId + (start + k) % films, firstUserId + i});
+                flushIfFull(jdbcTemplate, "INSERT INTO likes (film_id, user_id) VALUES (?, ?)", rows);
+            }
+        }
+        flush(jdbcTemplate, "INSERT INTO likes (film_id, user_id) VALUES (?, ?)", rows);
+        jdbcTemplate.update("UPDATE films AS f SET like_count = (SELECT COUNT(*) FROM likes AS l "
+                + "WHERE l.film_id = f.film_id)");
+
+        int friends = Math.min(friendsPerUser, users - 1);
+        for (int i = 0; i < users; i++) {
+            for (int k = 1; k <= friends; k++) {
+                rows.add(new Object[]{firstUserId + i, firstUserId + (i + k) % users, false});
+                flushIfFull(jdbcTemplate, "INSERT INTO friends (user_id, friend_id, is_friend) VALUES (?, ?, ?)",
+                        rows);
+            }
+        }
+        flush(jdbcTemplate, "INSERT INTO friends (user_id, friend_id, is_friend) VALUES (?, ?, ?)", rows);
+    }
+
+    private static void flushIfFull(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        if (rows.size() >= SEED_BATCH_SIZE) {
+            flush(jdbcTemplate, sql, rows);
+        }
+    }
+
+    private static void flush(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(sql, rows);
+        rows.clear();
+    }
+}
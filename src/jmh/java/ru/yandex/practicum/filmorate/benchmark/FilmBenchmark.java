@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FilmBenchmark {
+
+    @Benchmark
+    public Collection<Film> getFilms(CatalogState catalog) {
+        return catalog.filmService.getFilms();
+    }
+
+    @Benchmark
+    public Collection<Film> getPopularMovies(CatalogState catalog) {
+        return catalog.filmService.getPopularMovies(10);
+    }
+
+    @Benchmark
+    public Collection<Film> getPopularMoviesByGenre(CatalogState catalog) {
+        return catalog.filmService.getPopularMovies(10, 1, null, null);
+    }
+
+    @Benchmark
+    public Film getFilmById(CatalogState catalog) {
+        return catalog.filmService.getFilmById(catalog.randomFilmId());
+    }
+
+    /**
+     * Лайк и его отмена одним замером: иначе после первого прохода по фильмам все лайки уже стоят.
+     */
+    @Benchmark
+    public void likeAndDislike(CatalogState catalog, VisitorState visitor) {
+        long filmId = catalog.randomFilmId();
+        catalog.filmService.like(filmId, visitor.userId);
+        catalog.filmService.dislike(filmId, visitor.userId);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserBenchmark {
+
+    @Benchmark
+    public List<User> getCommonFriends(CatalogState catalog) {
+        long userId = catalog.randomUserId();
+        return catalog.userService.getCommonFriends(userId, catalog.neighbourOf(userId));
+    }
+
+    /**
+     * Добавление и удаление друга одним замером, чтобы набор друзей посетителя не рос от итерации к итерации.
+     */
+    @Benchmark
+    public void addAndDeleteFriend(CatalogState catalog, VisitorState visitor) {
+        long friendId = catalog.randomUserId();
+        catalog.userService.addFriend(visitor.userId, friendId);
+        catalog.userService.deleteFriend(visitor.userId, friendId);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Отдельный пользователь без лайков и друзей на каждый поток бенчмарка, чтобы операции записи
+ * не конфликтовали с заранее созданными данными и между потоками.
+ */
+@State(Scope.Thread)
+public class VisitorState {
+    long userId;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState catalog) {
+        String login = "visitor" + UUID.randomUUID().toString().replace("-", "");
+        User user = new User(login + "@benchmark.ru", login, "Посетитель", LocalDate.of(2000, 1, 1));
+        userId = catalog.userService.createUser(user).getId();
+    }
+}
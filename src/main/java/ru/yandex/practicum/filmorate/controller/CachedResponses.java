@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.storage.cache.ResponseCache;
+
+import java.util.Locale;
+
+/**
+ * Отдаёт закэшированное тело ответа как есть: сжатую копию — клиентам, принимающим gzip, иначе JSON.
+ * Сжатое и несжатое тела — разные представления, поэтому у сжатого к ETag добавляется суффикс -gz.
+ */
+final class CachedResponses {
+    private static final String GZIP = "gzip";
+    private static final String GZIP_ETAG_SUFFIX = "-gz";
+
+    private CachedResponses() {
+    }
+
+    static ResponseEntity<byte[]> toResponseEntity(ResponseCache.CachedResponse cached, WebRequest request) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(request)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(cached.gzip());
+        }
+        return response.body(cached.json());
+    }
+
+    /**
+     * ETag того представления, которое получит клиент с заголовками этого запроса.
+     */
+    static String etag(String etag, WebRequest request) {
+        return acceptsGzip(request) ? etag + GZIP_ETAG_SUFFIX : etag;
+    }
+
+    /**
+     * Разбирает Accept-Encoding по RFC 9110: gzip принят, если он или * указан с q больше нуля;
+     * явное упоминание gzip важнее *.
+     */
+    static boolean acceptsGzip(WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double wildcardQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parts);
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+                return quality > 0;
+            }
+            if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException exception) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
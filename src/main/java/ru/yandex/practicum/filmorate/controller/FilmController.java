@@ -1,42 +1,121 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.MultiGet;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.service.FilmDbService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.storage.cache.ResponseCache;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/films")
 @RequiredArgsConstructor
 public class FilmController {
     private final FilmDbService filmService;
+    private final RecommendationService recommendationService;
+    private final ObjectMapper objectMapper;
+    private final ResponseCache responseCache;
 
     @PostMapping
     public Film createFilm(@Valid @RequestBody Film film) {
         return filmService.createFilm(film);
     }
 
+    @PostMapping("/import")
+    public List<ImportResult> importFilms(@RequestBody List<Film> films) {
+        return filmService.importFilms(films);
+    }
+
     @GetMapping
-    public Collection<Film> getFilms() {
+    public Collection<Film> getFilms(@RequestParam(required = false) Long after) {
+        if (after != null) {
+            throw new ValidationException("Курсор after задаётся вместе с limit");
+        }
         return filmService.getFilms();
     }
 
+    /**
+     * Страница фильмов по возрастанию id. Курсор следующей страницы возвращается в поле nextCursor
+     * и передаётся в after; на последней странице он равен null.
+     */
+    @GetMapping(params = {"limit", "!ids"})
+    public Page<Film> getFilmsPage(@RequestParam Integer limit, @RequestParam(required = false) Long after) {
+        return filmService.getFilmsPage(after, limit);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<Film>> getFilmsByIds(@RequestParam List<Long> ids) {
+        MultiGet<Film> result = filmService.getFilmsByIds(ids);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!result.getMissingIds().isEmpty()) {
+            response.header(MultiGet.MISSING_IDS_HEADER, result.getMissingIds().stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(",")));
+        }
+        return response.body(result.getItems());
+    }
+
     @PutMapping
     public Film updateFilm(@Valid @RequestBody Film film) {
         return filmService.updateFilm(film);
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody exportFilms() {
+        return out -> filmService.exportFilms(film -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(film));
+                out.write('\n');
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        });
+    }
+
     @GetMapping("/{id}")
-    public Film getFilmById(@PathVariable Long id) {
+    public Film getFilmById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(filmService.getFilmETag(id))) {
+            return null;
+        }
         return filmService.getFilmById(id);
     }
 
     @GetMapping("/popular")
-    public Collection<Film> getPopularMovies(@RequestParam(defaultValue = "10") Integer count) {
-        return filmService.getPopularMovies(count);
+    public ResponseEntity<byte[]> getPopularMovies(@RequestParam(defaultValue = "10") Integer count,
+                                                   @RequestParam(required = false) Integer genreId,
+                                                   @RequestParam(required = false) Integer mpaId,
+                                                   @RequestParam(required = false) Integer year,
+                                                   WebRequest request) {
+        String key = String.join(":", "popular", String.valueOf(count), String.valueOf(genreId),
+                String.valueOf(mpaId), String.valueOf(year));
+        return CachedResponses.toResponseEntity(responseCache.get(key,
+                () -> filmService.getPopularMovies(count, genreId, mpaId, year)), request);
+    }
+
+    @GetMapping("/search")
+    public List<Film> searchFilms(@RequestParam String q, @RequestParam(defaultValue = "20") Integer count) {
+        return filmService.searchFilms(q, count);
+    }
+
+    @GetMapping("/{id}/similar")
+    public List<Film> getSimilarFilms(@PathVariable Long id, @RequestParam(defaultValue = "10") Integer count) {
+        return recommendationService.getSimilarFilms(id, count);
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -1,28 +1,42 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreDbService;
-
-import java.util.Collection;
+import ru.yandex.practicum.filmorate.storage.cache.ResponseCache;
 
 @RestController
 @RequestMapping("/genres")
 @RequiredArgsConstructor
 public class GenreController {
     private final GenreDbService genreService;
+    private final ResponseCache responseCache;
 
+    /**
+     * Жанр ищется до проверки ETag, чтобы условный запрос к несуществующему id получал 404, а не 304.
+     */
     @GetMapping("/{id}")
-    public Genre getGenreById(@PathVariable Integer id) {
-        return genreService.getGenreById(id);
+    public Genre getGenreById(@PathVariable Integer id, WebRequest request) {
+        Genre genre = genreService.getGenreById(id);
+        if (request.checkNotModified(genre.getId() + "-" + Integer.toHexString(genre.getName().hashCode()))) {
+            return null;
+        }
+        return genre;
     }
 
     @GetMapping
-    public Collection<Genre> getGenres() {
-        return genreService.getGenres();
+    public ResponseEntity<byte[]> getGenres(WebRequest request) {
+        String version = genreService.getGenresETag();
+        if (request.checkNotModified(CachedResponses.etag(version, request))) {
+            return null;
+        }
+        return CachedResponses.toResponseEntity(responseCache.get("genres", version, genreService::getGenres),
+                request);
     }
 }
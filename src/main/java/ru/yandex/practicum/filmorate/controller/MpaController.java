@@ -1,28 +1,41 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaDbService;
-
-import java.util.Collection;
+import ru.yandex.practicum.filmorate.storage.cache.ResponseCache;
 
 @RestController
 @RequestMapping("/mpa")
 @RequiredArgsConstructor
 public class MpaController {
     private final MpaDbService mpaService;
+    private final ResponseCache responseCache;
 
+    /**
+     * Рейтинг ищется до проверки ETag, чтобы условный запрос к несуществующему id получал 404, а не 304.
+     */
     @GetMapping("/{id}")
-    public Mpa getMpaById(@PathVariable Integer id) {
-        return mpaService.getMpaById(id);
+    public Mpa getMpaById(@PathVariable Integer id, WebRequest request) {
+        Mpa mpa = mpaService.getMpaById(id);
+        if (request.checkNotModified(mpa.getId() + "-" + Integer.toHexString(mpa.getName().hashCode()))) {
+            return null;
+        }
+        return mpa;
     }
 
     @GetMapping
-    public Collection<Mpa> getMpaList() {
-        return mpaService.getMpaList();
+    public ResponseEntity<byte[]> getMpaList(WebRequest request) {
+        String version = mpaService.getMpaListETag();
+        if (request.checkNotModified(CachedResponses.etag(version, request))) {
+            return null;
+        }
+        return CachedResponses.toResponseEntity(responseCache.get("mpa", version, mpaService::getMpaList), request);
     }
 }
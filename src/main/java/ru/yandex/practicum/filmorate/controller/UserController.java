@@ -1,18 +1,32 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MultiGet;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
 import ru.yandex.practicum.filmorate.service.UserDbService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/users")
 @RequiredArgsConstructor
 public class UserController {
     private final UserDbService userService;
+    private final RecommendationService recommendationService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public User createUser(@Valid @RequestBody User user) {
@@ -20,15 +34,51 @@ public class UserController {
     }
 
     @GetMapping
-    public List<User> getUsers() {
+    public List<User> getUsers(@RequestParam(required = false) Long after) {
+        if (after != null) {
+            throw new ValidationException("Курсор after задаётся вместе с limit");
+        }
         return userService.getUsers();
     }
 
+    /**
+     * Страница пользователей по возрастанию id. Курсор следующей страницы возвращается в поле nextCursor
+     * и передаётся в after; на последней странице он равен null.
+     */
+    @GetMapping(params = {"limit", "!ids"})
+    public Page<User> getUsersPage(@RequestParam Integer limit, @RequestParam(required = false) Long after) {
+        return userService.getUsersPage(after, limit);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<User>> getUsersByIds(@RequestParam List<Long> ids) {
+        MultiGet<User> result = userService.getUsersByIds(ids);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!result.getMissingIds().isEmpty()) {
+            response.header(MultiGet.MISSING_IDS_HEADER, result.getMissingIds().stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(",")));
+        }
+        return response.body(result.getItems());
+    }
+
     @PutMapping
     public User updateUser(@Valid @RequestBody User user) {
         return userService.updateUser(user);
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody exportUsers() {
+        return out -> userService.exportUsers(user -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(user));
+                out.write('\n');
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        });
+    }
+
     @GetMapping("/{id}")
     public User getUserById(@PathVariable Long id) {
         return userService.getUserById(id);
@@ -44,6 +94,11 @@ public class UserController {
         userService.deleteFriend(id, friendId);
     }
 
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable Long id, @RequestParam(defaultValue = "10") Integer count) {
+        return recommendationService.getRecommendations(id, count);
+    }
+
     @GetMapping("/{id}/friends")
     public List<User> getFriends(@PathVariable Long id) {
         return userService.getFriendsList(id);
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Приёмник Logbook, который на потоке запроса только копирует в запись метод, адрес, статус, время
+ * и не больше max-body-bytes байт каждого тела, а форматирование и вывод в журнал выполняет фоновый поток.
+ * Записи передаются через {@link LogRingBuffer}; при переполнении они отбрасываются с предупреждением.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.http-log.sampling.enabled", havingValue = "true", matchIfMissing = true)
+public class AsyncLogSink implements Sink {
+    private static final byte[] NO_BODY = new byte[0];
+    private final LogRingBuffer<HttpLogRecord> buffer;
+    private final int maxBodyBytes;
+    private final long flushIntervalMs;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "http-log-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AsyncLogSink(@Value("${filmorate.http-log.buffer-capacity:8192}") int capacity,
+                        @Value("${filmorate.http-log.max-body-bytes:2048}") int maxBodyBytes,
+                        @Value("${filmorate.http-log.flush-interval-ms:100}") long flushIntervalMs) {
+        this.buffer = new LogRingBuffer<>(capacity);
+        this.maxBodyBytes = maxBodyBytes;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    private record HttpLogRecord(String id, String method, String uri, int status, long durationMs,
+                                 byte[] requestBody, byte[] responseBody, boolean truncated) {
+
+        String format() {
+            StringBuilder line = new StringBuilder(128 + requestBody.length + responseBody.length)
+                    .append(id).append(' ').append(method).append(' ').append(uri);
+            if (status > 0) {
+                line.append(" -> ").append(status).append(" за ").append(durationMs).append(" мс");
+            }
+            if (requestBody.length > 0) {
+                line.append(" запрос: ").append(new String(requestBody, StandardCharsets.UTF_8));
+            }
+            if (responseBody.length > 0) {
+                line.append(" ответ: ").append(new String(responseBody, StandardCharsets.UTF_8));
+            }
+            if (truncated) {
+                line.append(" (тела обрезаны)");
+            }
+            return line.toString();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.scheduleWithFixedDelay(this::drain, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(flushIntervalMs * 10, TimeUnit.MILLISECONDS);
+        drain();
+    }
+
+    @Override
+    public boolean isActive() {
+        return log.isInfoEnabled();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request) throws IOException {
+        byte[] requestBody = request.getBody();
+        buffer.offer(new HttpLogRecord(precorrelation.getId(), request.getMethod(), request.getRequestUri(), 0, 0,
+                cap(requestBody), NO_BODY, requestBody.length > maxBodyBytes));
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+        byte[] requestBody = request.getBody();
+        byte[] responseBody = response.getBody();
+        buffer.offer(new HttpLogRecord(correlation.getId(), request.getMethod(), request.getRequestUri(),
+                response.getStatus(), correlation.getDuration().toMillis(), cap(requestBody), cap(responseBody),
+                requestBody.length > maxBodyBytes || responseBody.length > maxBodyBytes));
+    }
+
+    private byte[] cap(byte[] body) {
+        if (body.length == 0) {
+            return NO_BODY;
+        }
+        return body.length <= maxBodyBytes ? body : Arrays.copyOf(body, maxBodyBytes);
+    }
+
+    private synchronized void drain() {
+        buffer.drain(record -> log.info(record.format()));
+        long dropped = buffer.takeDropped();
+        if (dropped > 0) {
+            log.warn("Буфер журнала HTTP переполнен, пропущено записей: {}", dropped);
+        }
+    }
+}
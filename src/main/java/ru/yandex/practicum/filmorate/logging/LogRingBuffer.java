@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Ограниченный кольцевой буфер без блокировок для многих писателей и одного читателя. Писатель занимает
+ * ячейку через CAS по счётчику записей и публикует в неё значение; при заполненном буфере значение
+ * отбрасывается, чтобы поток запроса никогда не ждал журналирования.
+ */
+public class LogRingBuffer<T> {
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+
+    public LogRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Ёмкость буфера должна быть положительной: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public boolean offer(T value) {
+        long index;
+        do {
+            index = producerIndex.get();
+            if (index - consumerIndex.get() > mask) {
+                dropped.increment();
+                return false;
+            }
+        } while (!producerIndex.compareAndSet(index, index + 1));
+        slots.setRelease((int) (index & mask), value);
+        return true;
+    }
+
+    /**
+     * Передаёт обработчику все опубликованные значения по порядку. Вызывается только из одного потока.
+     * Ячейка, занятая писателем, но ещё не заполненная, останавливает проход до следующего вызова.
+     */
+    public int drain(Consumer<T> consumer) {
+        long index = consumerIndex.get();
+        int drained = 0;
+        while (true) {
+            int slot = (int) (index & mask);
+            T value = slots.getAcquire(slot);
+            if (value == null) {
+                break;
+            }
+            slots.setPlain(slot, null);
+            consumerIndex.setRelease(++index);
+            consumer.accept(value);
+            drained++;
+        }
+        return drained;
+    }
+
+    public long takeDropped() {
+        return dropped.sumThenReset();
+    }
+}
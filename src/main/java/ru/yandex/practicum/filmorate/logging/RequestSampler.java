@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Отбирает каждый N-й запрос отдельно для каждого эндпоинта, поэтому редкие эндпоинты попадают
+ * в журнал наравне с частыми. Эндпоинт — метод и путь, в котором числовые сегменты заменены на {id}.
+ */
+public class RequestSampler {
+    private static final int MAX_ENDPOINTS = 1000;
+    private static final String OTHER_ENDPOINT = "*";
+    private final int sampleRate;
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public RequestSampler(int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("Частота выборки должна быть положительной: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean sample(String method, String path) {
+        if (sampleRate == 1) {
+            return true;
+        }
+        String endpoint = endpoint(method, path);
+        AtomicLong counter = counters.get(endpoint);
+        if (counter == null) {
+            counter = counters.size() < MAX_ENDPOINTS
+                    ? counters.computeIfAbsent(endpoint, key -> new AtomicLong())
+                    : counters.computeIfAbsent(OTHER_ENDPOINT, key -> new AtomicLong());
+        }
+        return counter.getAndIncrement() % sampleRate == 0;
+    }
+
+    static String endpoint(String method, String path) {
+        StringBuilder endpoint = new StringBuilder(method.length() + path.length() + 1).append(method).append(' ');
+        int start = 0;
+        while (start < path.length()) {
+            int end = path.indexOf('/', start + 1);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (isNumericSegment(path, start, end)) {
+                endpoint.append("/{id}");
+            } else {
+                endpoint.append(path, start, end);
+            }
+            start = end;
+        }
+        return endpoint.toString();
+    }
+
+    private static boolean isNumericSegment(String path, int start, int end) {
+        if (path.charAt(start) != '/' || end - start < 2) {
+            return false;
+        }
+        for (int i = start + 1; i < end; i++) {
+            if (!Character.isDigit(path.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
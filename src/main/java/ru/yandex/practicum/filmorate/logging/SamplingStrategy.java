@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Стратегия Logbook с выборкой: тела запроса и ответа буферизуются только у отобранных запросов,
+ * а запрос и ответ пишутся одной записью после завершения обмена. Ошибки (статус 400 и выше)
+ * и медленные запросы пишутся всегда — у не отобранных без тел.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.http-log.sampling.enabled", havingValue = "true", matchIfMissing = true)
+public class SamplingStrategy implements Strategy {
+    /**
+     * Решение о выборке принимается при разборе запроса и нужно ещё дважды на том же потоке:
+     * при подготовке ответа и при записи. Для асинхронных запросов запись может прийти из другого потока,
+     * тогда такой запрос пишется только как ошибка или медленный.
+     */
+    private static final ThreadLocal<Boolean> SAMPLED = new ThreadLocal<>();
+    private static final int ERROR_STATUS = 400;
+    private final RequestSampler sampler;
+    private final Duration slowThreshold;
+
+    public SamplingStrategy(@Value("${filmorate.http-log.sample-rate:100}") int sampleRate,
+                            @Value("${filmorate.http-log.slow-threshold-ms:1000}") long slowThresholdMs) {
+        this.sampler = new RequestSampler(sampleRate);
+        this.slowThreshold = Duration.ofMillis(slowThresholdMs);
+    }
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        boolean sampled = sampler.sample(request.getMethod(), request.getPath());
+        SAMPLED.set(sampled);
+        return sampled ? request.withBody() : request.withoutBody();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) {
+        // запрос пишется вместе с ответом
+    }
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        return Boolean.TRUE.equals(SAMPLED.get()) ? response.withBody() : response.withoutBody();
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response, Sink sink)
+            throws IOException {
+        boolean sampled = Boolean.TRUE.equals(SAMPLED.get());
+        SAMPLED.remove();
+        if (sampled || response.getStatus() >= ERROR_STATUS
+                || correlation.getDuration().compareTo(slowThreshold) >= 0) {
+            sink.write(correlation, request, response);
+        }
+    }
+}
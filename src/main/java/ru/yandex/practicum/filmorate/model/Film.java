@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.*;
 import lombok.*;
 
@@ -26,6 +27,9 @@ public class Film {
     @NotNull
     private Mpa mpa;
     private Set<Genre> genres = new LinkedHashSet<>();
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @EqualsAndHashCode.Exclude
+    private long likeCount;
 
     public Film(String name, String description, LocalDate releaseDate, long duration) {
         this.name = name;
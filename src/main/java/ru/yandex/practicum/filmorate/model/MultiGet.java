@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+public class MultiGet<T> {
+    public static final String MISSING_IDS_HEADER = "X-Missing-Ids";
+
+    private List<T> items;
+    private List<Long> missingIds;
+
+    /**
+     * Раскладывает найденные объекты в порядке запрошенных id, а id, для которых ничего не найдено,
+     * собирает в отдельный список.
+     */
+    public static <T> MultiGet<T> of(List<Long> ids, List<T> found, Function<T, Long> idGetter) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T item : found) {
+            byId.put(idGetter.apply(item), item);
+        }
+        List<T> items = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            T item = byId.get(id);
+            if (item == null) {
+                missingIds.add(id);
+            } else {
+                items.add(item);
+            }
+        }
+        return new MultiGet<>(items, missingIds);
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Ограничение частоты лайков и изменений дружбы для каждого пользователя. Лимиты маршрутов задаются
+ * ёмкостью корзины (допустимый всплеск) и скоростью её пополнения в запросах в секунду.
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfiguration implements WebMvcConfigurer {
+    private final TokenBucketLimiter likeLimiter;
+    private final TokenBucketLimiter friendshipLimiter;
+
+    public RateLimitConfiguration(@Value("${filmorate.rate-limit.like.capacity:20}") int likeCapacity,
+                                  @Value("${filmorate.rate-limit.like.refill-per-second:5}") double likeRefill,
+                                  @Value("${filmorate.rate-limit.friends.capacity:10}") int friendsCapacity,
+                                  @Value("${filmorate.rate-limit.friends.refill-per-second:1}") double friendsRefill,
+                                  @Value("${filmorate.rate-limit.idle-eviction-ms:600000}") long idleEvictionMs) {
+        this.likeLimiter = new TokenBucketLimiter(likeCapacity, likeRefill, idleEvictionMs);
+        this.friendshipLimiter = new TokenBucketLimiter(friendsCapacity, friendsRefill, idleEvictionMs);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RateLimitInterceptor(likeLimiter, "userId"))
+                .addPathPatterns("/films/*/like/*");
+        registry.addInterceptor(new RateLimitInterceptor(friendshipLimiter, "id"))
+                .addPathPatterns("/users/*/friends/*");
+    }
+}
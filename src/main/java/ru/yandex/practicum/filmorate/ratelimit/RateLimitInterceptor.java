@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.yandex.practicum.filmorate.exception.RateLimitExceededException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Ограничивает частоту изменяющих запросов одного пользователя к маршруту. Пользователь берётся
+ * из переменной пути, проверка выполняется до вызова контроллера и обращения к базе данных.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private final TokenBucketLimiter limiter;
+    private final String userIdVariable;
+
+    public RateLimitInterceptor(TokenBucketLimiter limiter, String userIdVariable) {
+        this.limiter = limiter;
+        this.userIdVariable = userIdVariable;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (READ_METHODS.contains(request.getMethod())) {
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request
+                .getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String userId = variables == null ? null : variables.get(userIdVariable);
+        if (userId == null) {
+            return true;
+        }
+        long waitNanos;
+        try {
+            waitNanos = limiter.tryAcquire(Long.parseLong(userId));
+        } catch (NumberFormatException exception) {
+            return true;
+        }
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+            throw new RateLimitExceededException(format("Слишком много запросов от пользователя %s к %s",
+                    userId, request.getRequestURI()), retryAfterSeconds);
+        }
+        return true;
+    }
+}
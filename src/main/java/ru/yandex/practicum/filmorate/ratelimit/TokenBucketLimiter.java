@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Маркерные корзины по пользователям. Состояние корзины — одно число: момент, к которому корзина
+ * снова станет полной (алгоритм GCRA), поэтому списание маркера — один CAS без блокировок.
+ * Простаивающие корзины, то есть уже снова полные, удаляются без потери информации. Таблица просматривается
+ * целиком не на каждого нового пользователя, а после того, как с прошлого просмотра добавилось не меньше
+ * половины её размера (и не меньше SWEEP_THRESHOLD) корзин, так что очистка стоит O(1) на вставку.
+ */
+public class TokenBucketLimiter {
+    private static final int SWEEP_THRESHOLD = 4096;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final long idleNanos;
+    private final Map<Long, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger insertedSinceSweep = new AtomicInteger();
+
+    public TokenBucketLimiter(int capacity, double refillPerSecond, long idleEvictionMs) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Ёмкость корзины и скорость пополнения должны быть положительными");
+        }
+        this.intervalNanos = (long) (NANOS_PER_SECOND / refillPerSecond);
+        this.burstNanos = intervalNanos * capacity;
+        this.idleNanos = Math.max(idleEvictionMs * 1_000_000, burstNanos);
+    }
+
+    /**
+     * Списывает маркер из корзины пользователя.
+     *
+     * @return 0, если маркер списан, иначе через сколько наносекунд появится следующий маркер
+     */
+    public long tryAcquire(long userId) {
+        return tryAcquire(userId, System.nanoTime());
+    }
+
+    long tryAcquire(long userId, long now) {
+        AtomicLong bucket = bucket(userId, now);
+        while (true) {
+            long fullAt = bucket.get();
+            long updated = Math.max(fullAt, now) + intervalNanos;
+            long wait = updated - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, updated)) {
+                return 0;
+            }
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Удаляет корзины, которые простаивают дольше idle-eviction-ms.
+     */
+    void sweep(long now) {
+        buckets.values().removeIf(idle -> now - idle.get() >= idleNanos);
+    }
+
+    private AtomicLong bucket(long userId, long now) {
+        AtomicLong bucket = buckets.get(userId);
+        if (bucket != null) {
+            return bucket;
+        }
+        AtomicLong created = new AtomicLong(now);
+        bucket = buckets.putIfAbsent(userId, created);
+        if (bucket != null) {
+            return bucket;
+        }
+        int inserted = insertedSinceSweep.incrementAndGet();
+        if (inserted >= Math.max(SWEEP_THRESHOLD, buckets.size() / 2)
+                && insertedSinceSweep.compareAndSet(inserted, 0)) {
+            sweep(now);
+        }
+        return created;
+    }
+}
@@ -1,96 +1,231 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.exception.ObjectAlreadyExistsException;
 import ru.yandex.practicum.filmorate.exception.ObjectNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.db.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.MultiGet;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.storage.db.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.db.genre.GenreDao;
 import ru.yandex.practicum.filmorate.storage.db.like.LikeDao;
 import ru.yandex.practicum.filmorate.storage.db.mpa.MpaDao;
-import ru.yandex.practicum.filmorate.storage.db.user.UserDbStorage;
 import ru.yandex.practicum.filmorate.storage.db.user.UserStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.PopularityIndex;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 
 @Slf4j
 @Service
 public class FilmDbService {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final LocalDate FIRST_RELEASE_DATE = LocalDate.of(1895, 12, 28);
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
     private final GenreDao genreDao;
     private final MpaDao mpaDao;
     private final LikeDao likeDao;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final FilmSearchIndex filmSearchIndex;
+    private final PopularityIndex popularityIndex;
+    private final int importChunkSize;
 
     @Autowired
-    public FilmDbService(@Qualifier("FilmDbStorage") FilmDbStorage filmStorage,
-                         @Qualifier("UserDbStorage") UserDbStorage userStorage,
+    public FilmDbService(FilmStorage filmStorage,
+                         UserStorage userStorage,
                          GenreDao genreDao,
                          MpaDao mpaDao,
-                         LikeDao likeDao) {
+                         LikeDao likeDao,
+                         Validator validator,
+                         TransactionTemplate transactionTemplate,
+                         FilmSearchIndex filmSearchIndex,
+                         PopularityIndex popularityIndex,
+                         @Value("${filmorate.import.chunk-size:1000}") int importChunkSize) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
         this.genreDao = genreDao;
         this.mpaDao = mpaDao;
         this.likeDao = likeDao;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.filmSearchIndex = filmSearchIndex;
+        this.popularityIndex = popularityIndex;
+        this.importChunkSize = importChunkSize;
     }
 
+    @Transactional
     public Film createFilm(Film film) {
         checkIfExists(film);
         validate(film);
+        resolveReferences(film);
         Film thisFilm = filmStorage.createFilm(film);
-        filmStorage.addGenres(thisFilm.getId(), film.getGenres());
-        thisFilm.setGenres(filmStorage.getGenres(thisFilm.getId()));
-        thisFilm.setMpa(mpaDao.getMpaById(thisFilm.getMpa().getId()));
+        filmStorage.addGenres(thisFilm.getId(), thisFilm.getGenres());
         return thisFilm;
     }
 
+    public List<ImportResult> importFilms(List<Film> films) {
+        log.debug("importFilms({} шт.)", films.size());
+        List<ImportResult> results = new ArrayList<>(films.size());
+        List<Film> chunk = new ArrayList<>();
+        List<ImportResult> chunkResults = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            ImportResult result = new ImportResult(i, null, checkImport(film));
+            results.add(result);
+            if (result.getError() != null) {
+                continue;
+            }
+            resolveReferences(film);
+            chunk.add(film);
+            chunkResults.add(result);
+            if (chunk.size() == importChunkSize) {
+                writeChunk(chunk, chunkResults);
+                chunk.clear();
+                chunkResults.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, chunkResults);
+        }
+        log.info("Импорт фильмов завершён: записано {} из {}",
+                results.stream().filter(result -> result.getId() != null).count(), films.size());
+        return results;
+    }
+
+    @Transactional
     public Film updateFilm(Film film) {
+        Film currentFilm = getExistingFilm(film.getId());
         checkIfNotExists(film);
         validate(film);
+        resolveReferences(film);
+        film.setLikeCount(currentFilm.getLikeCount());
         Film thisFilm = filmStorage.updateFilm(film);
-        filmStorage.updateGenres(thisFilm.getId(), film.getGenres());
-        thisFilm.setGenres(filmStorage.getGenres(thisFilm.getId()));
-        thisFilm.setMpa(mpaDao.getMpaById(thisFilm.getMpa().getId()));
+        filmStorage.updateGenres(thisFilm.getId(), currentFilm.getGenres(), thisFilm.getGenres());
         return thisFilm;
     }
 
+    @Transactional(readOnly = true)
     public Film getFilmById(Long filmId) {
-        if (!filmStorage.isContains(filmId)) {
-            throw new ObjectNotFoundException("Невозможно найти фильм с id " + filmId);
+        return getExistingFilm(filmId);
+    }
+
+    @Transactional(readOnly = true)
+    public String getFilmETag(Long filmId) {
+        try {
+            return filmStorage.getFilmETag(filmId);
+        } catch (EmptyResultDataAccessException exception) {
+            throw new ObjectNotFoundException(format("Фильм с id %d не найден", filmId));
         }
-        Film film = filmStorage.getFilmById(filmId);
-        film.setGenres(filmStorage.getGenres(filmId));
-        film.setMpa(mpaDao.getMpaById(film.getMpa().getId()));
-        return film;
     }
 
+    @Transactional(readOnly = true)
     public Collection<Film> getFilms() {
-        var films = filmStorage.getFilms();
-        for (Film film : films) {
-            film.setGenres(filmStorage.getGenres(film.getId()));
-            film.setMpa(mpaDao.getMpaById(film.getMpa().getId()));
+        return filmStorage.getFilms();
+    }
+
+    /**
+     * Объекты по списку id в порядке запроса; повторяющиеся id учитываются один раз, ненайденные
+     * возвращаются отдельным списком.
+     */
+    @Transactional(readOnly = true)
+    public MultiGet<Film> getFilmsByIds(List<Long> ids) {
+        log.debug("getFilmsByIds({})", ids);
+        if (ids.isEmpty() || ids.size() > MAX_PAGE_SIZE || ids.stream().anyMatch(Objects::isNull)) {
+            throw new ValidationException(format("Количество id должно быть от 1 до %d", MAX_PAGE_SIZE));
         }
-        return films;
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        List<Film> films = filmStorage.getFilmsByIds(distinctIds.stream().mapToLong(Long::longValue).toArray());
+        return MultiGet.of(distinctIds, films, Film::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Film> getFilmsPage(Long after, Integer limit) {
+        int pageSize = checkPageSize(limit);
+        List<Film> films = filmStorage.getFilmsAfter(after == null ? 0L : after, pageSize + 1);
+        return Page.of(films, pageSize, Film::getId);
     }
 
+    @Transactional(readOnly = true)
+    public void exportFilms(Consumer<Film> action) {
+        filmStorage.forEachFilm(action);
+    }
+
+    @Transactional(readOnly = true)
     public List<Film> getPopularMovies(Integer count) {
-        List<Film> popularMovies = filmStorage.getPopularMovies(count);
-        for (Film film : popularMovies) {
-            film.setGenres(filmStorage.getGenres(film.getId()));
-            film.setMpa(mpaDao.getMpaById(film.getMpa().getId()));
+        return filmStorage.getPopularMovies(count);
+    }
+
+    /**
+     * Самые популярные фильмы с фильтром по жанру, рейтингу MPA и году выхода. Без фильтров запрос
+     * идёт в базу как раньше, с фильтрами — в рейтинги популярности в памяти.
+     */
+    @Transactional(readOnly = true)
+    public List<Film> getPopularMovies(Integer count, Integer genreId, Integer mpaId, Integer year) {
+        log.debug("getPopularMovies({}, {}, {}, {})", count, genreId, mpaId, year);
+        if (genreId == null && mpaId == null && year == null) {
+            return getPopularMovies(count);
+        }
+        if (genreId != null && !genreDao.isContains(genreId)) {
+            throw new ObjectNotFoundException(format("Жанр с id %d не найден", genreId));
         }
-        return popularMovies;
+        if (mpaId != null && !mpaDao.isContains(mpaId)) {
+            throw new ObjectNotFoundException(format("MPA с id %d не найден", mpaId));
+        }
+        List<Film> films = filmStorage.getFilmsByIds(popularityIndex.getPopularFilms(genreId, mpaId, year,
+                checkPageSize(count)));
+        log.trace("Самые популярные фильмы по фильтру: {}", films);
+        return films;
+    }
+
+    /**
+     * Индекс не узнаёт об удалённых фильмах, поэтому отсутствующие в хранилище id отбрасываются до отбора
+     * первых count: если после этого фильмов не хватает, список кандидатов расширяется вдвое.
+     */
+    @Transactional(readOnly = true)
+    public List<Film> searchFilms(String query, Integer count) {
+        log.debug("searchFilms({}, {})", query, count);
+        if (query == null || query.isBlank()) {
+            throw new ValidationException("Поисковый запрос не может быть пустым");
+        }
+        int pageSize = checkPageSize(count);
+        int limit = pageSize;
+        long[] ids = filmSearchIndex.search(query, limit);
+        List<Film> films = filmStorage.getFilmsByIds(ids);
+        while (films.size() < pageSize && ids.length == limit) {
+            limit *= 2;
+            ids = filmSearchIndex.search(query, limit);
+            films = filmStorage.getFilmsByIds(ids);
+        }
+        if (films.size() > pageSize) {
+            films = films.subList(0, pageSize);
+        }
+        log.trace("Найдены фильмы по запросу \"{}\": {}", query, films);
+        return films;
     }
 
     public void like(Long filmId, Long userId) {
@@ -110,13 +245,16 @@ public class FilmDbService {
         likeDao.dislike(filmId, userId);
     }
 
+    private Film getExistingFilm(Long filmId) {
+        try {
+            return filmStorage.getFilmById(filmId);
+        } catch (EmptyResultDataAccessException exception) {
+            throw new ObjectNotFoundException(format("Фильм с id %d не найден", filmId));
+        }
+    }
+
     private void checkIfNotExists(Film film) {
         log.debug("checkIfNotExists({})", film);
-        if (film.getId() != null) {
-            if (!filmStorage.isContains(film.getId())) {
-                throw new ObjectNotFoundException(format("Фильм с id %d не найден", film.getId()));
-            }
-        }
         if (!mpaDao.isContains(film.getMpa().getId())) {
             throw new ObjectNotFoundException(format("MPA для фильма с id %d не найден", film.getId()));
         }
@@ -145,13 +283,82 @@ public class FilmDbService {
         }
     }
 
+    private String checkImport(Film film) {
+        if (film == null) {
+            return "Пустая запись вместо фильма";
+        }
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (film.getId() != null) {
+            return "Идентификатор фильма назначается при импорте";
+        }
+        if (film.getReleaseDate().isBefore(FIRST_RELEASE_DATE)) {
+            return "Некорректная дата выхода фильма";
+        }
+        if (!mpaDao.isContains(film.getMpa().getId())) {
+            return format("MPA с id %d не найден", film.getMpa().getId());
+        }
+        if (film.getGenres() == null) {
+            film.setGenres(new LinkedHashSet<>());
+        }
+        for (Genre genre : film.getGenres()) {
+            if (!genreDao.isContains(genre.getId())) {
+                return format("Жанр с id %d не найден", genre.getId());
+            }
+        }
+        return null;
+    }
+
+    private void writeChunk(List<Film> chunk, List<ImportResult> chunkResults) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> filmStorage.createFilms(chunk));
+            for (int i = 0; i < chunk.size(); i++) {
+                chunkResults.get(i).setId(chunk.get(i).getId());
+            }
+        } catch (DataAccessException exception) {
+            log.warn("Не удалось записать пакет из {} фильмов", chunk.size(), exception);
+            for (ImportResult result : chunkResults) {
+                result.setError("Не удалось записать пакет фильмов: " + exception.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private void resolveReferences(Film film) {
+        film.setMpa(mpaDao.getMpaById(film.getMpa().getId()));
+        film.setGenres(resolveGenres(film.getGenres()));
+    }
+
+    private Set<Genre> resolveGenres(Set<Genre> genres) {
+        return genres.stream()
+                .map(Genre::getId)
+                .distinct()
+                .sorted()
+                .map(genreDao::getGenreById)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
     private void validate(Film film) {
         log.debug("validate({})", film);
-        if (film.getReleaseDate().isBefore(LocalDate.of(1895, 12, 28))) {
+        if (film.getReleaseDate().isBefore(FIRST_RELEASE_DATE)) {
             throw new ValidationException("Ошибка! Некорректная дата выхода фильма");
         }
     }
 
+    private int checkPageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException(format("Размер страницы должен быть от 1 до %d", MAX_PAGE_SIZE));
+        }
+        return limit;
+    }
+
     private void checkLike(Long filmId, Long userId) {
         log.debug("checkLike({}, {})", filmId, userId);
         if (!filmStorage.isContains(filmId)) {
@@ -23,4 +23,8 @@ public class GenreDbService {
     public Collection<Genre> getGenres() {
         return genreDao.getGenres();
     }
+
+    public String getGenresETag() {
+        return genreDao.getGenresETag();
+    }
 }
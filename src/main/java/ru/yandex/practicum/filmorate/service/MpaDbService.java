@@ -23,4 +23,8 @@ public class MpaDbService {
     public Collection<Mpa> getMpaList() {
         return mpaDao.getMpaList();
     }
+
+    public String getMpaListETag() {
+        return mpaDao.getMpaListETag();
+    }
 }
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.ObjectNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.db.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.db.user.UserStorage;
+import ru.yandex.practicum.filmorate.storage.index.CoLikeIndex;
+
+import java.util.List;
+
+import static java.lang.String.format;
+
+@Slf4j
+@Service
+public class RecommendationService {
+    private static final int MAX_COUNT = 100;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final CoLikeIndex coLikeIndex;
+
+    @Autowired
+    public RecommendationService(FilmStorage filmStorage,
+                                 UserStorage userStorage,
+                                 CoLikeIndex coLikeIndex) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.coLikeIndex = coLikeIndex;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Film> getSimilarFilms(Long filmId, Integer count) {
+        checkCount(count);
+        if (!filmStorage.isContains(filmId)) {
+            throw new ObjectNotFoundException(format("Фильм с id %d не найден", filmId));
+        }
+        List<Film> films = filmStorage.getFilmsByIds(coLikeIndex.getSimilarFilms(filmId, count));
+        log.trace("Похожие на фильм {} фильмы: {}", filmId, films);
+        return films;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Film> getRecommendations(Long userId, Integer count) {
+        checkCount(count);
+        if (!userStorage.isContains(userId)) {
+            throw new ObjectNotFoundException(format("Пользователь с id %d не найден", userId));
+        }
+        List<Film> films = filmStorage.getFilmsByIds(coLikeIndex.getRecommendations(userId, count));
+        log.trace("Рекомендации пользователю {}: {}", userId, films);
+        return films;
+    }
+
+    private void checkCount(Integer count) {
+        if (count == null || count < 1 || count > MAX_COUNT) {
+            throw new ValidationException(format("Количество фильмов должно быть от 1 до %d", MAX_COUNT));
+        }
+    }
+}
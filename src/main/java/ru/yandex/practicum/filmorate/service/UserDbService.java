@@ -2,28 +2,33 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.ObjectAlreadyExistsException;
 import ru.yandex.practicum.filmorate.exception.ObjectNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.MultiGet;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.db.friendship.FriendshipDao;
-import ru.yandex.practicum.filmorate.storage.db.user.UserDbStorage;
 import ru.yandex.practicum.filmorate.storage.db.user.UserStorage;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 import static java.lang.String.format;
 
 @Slf4j
 @Service
 public class UserDbService {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
     private final UserStorage userStorage;
     private final FriendshipDao friendshipDao;
 
     @Autowired
-    public UserDbService(@Qualifier("UserDbStorage") UserDbStorage userStorage,
+    public UserDbService(UserStorage userStorage,
                          FriendshipDao friendshipDao) {
         this.userStorage = userStorage;
         this.friendshipDao = friendshipDao;
@@ -49,6 +54,7 @@ public class UserDbService {
         return userStorage.updateUser(user);
     }
 
+    @Transactional(readOnly = true)
     public User getUserById(Long id) {
         if (!userStorage.isContains(id)) {
             throw new ObjectNotFoundException(format("Пользователь с id %d не найден", id));
@@ -56,10 +62,38 @@ public class UserDbService {
         return userStorage.getUserById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<User> getUsers() {
         return userStorage.getUsers();
     }
 
+    /**
+     * Объекты по списку id в порядке запроса; повторяющиеся id учитываются один раз, ненайденные
+     * возвращаются отдельным списком.
+     */
+    @Transactional(readOnly = true)
+    public MultiGet<User> getUsersByIds(List<Long> ids) {
+        log.debug("getUsersByIds({})", ids);
+        if (ids.isEmpty() || ids.size() > MAX_PAGE_SIZE || ids.stream().anyMatch(Objects::isNull)) {
+            throw new ValidationException(format("Количество id должно быть от 1 до %d", MAX_PAGE_SIZE));
+        }
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        List<User> users = userStorage.getUsersByIds(distinctIds.stream().mapToLong(Long::longValue).toArray());
+        return MultiGet.of(distinctIds, users, User::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<User> getUsersPage(Long after, Integer limit) {
+        int pageSize = checkPageSize(limit);
+        List<User> users = userStorage.getUsersAfter(after == null ? 0L : after, pageSize + 1);
+        return Page.of(users, pageSize, User::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<User> action) {
+        userStorage.forEachUser(action);
+    }
+
     public void addFriend(Long userId, Long friendId) {
         checkIfFriend(userId, friendId);
         boolean isFriend = friendshipDao.isFriend(userId, friendId);
@@ -71,6 +105,7 @@ public class UserDbService {
         friendshipDao.deleteFriend(userId, friendId);
     }
 
+    @Transactional(readOnly = true)
     public List<User> getFriendsList(Long id) {
         if (!userStorage.isContains(id)) {
             throw new ObjectNotFoundException(format("Пользователь с id %d не найден", id));
@@ -80,6 +115,7 @@ public class UserDbService {
         return friends;
     }
 
+    @Transactional(readOnly = true)
     public List<User> getCommonFriends(Long userId, Long friendId) {
         if (!userStorage.isContains(userId)) {
             throw new ObjectNotFoundException(format("Пользователь с id %d не найден", userId));
@@ -101,6 +137,16 @@ public class UserDbService {
         }
     }
 
+    private int checkPageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException(format("Размер страницы должен быть от 1 до %d", MAX_PAGE_SIZE));
+        }
+        return limit;
+    }
+
     private void checkIfFriend(Long userId, Long friendId) {
         log.debug("checkIfFriend({}, {})", userId, friendId);
         if (!userStorage.isContains(userId)) {
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Неизменяемый снимок справочника, проиндексированный по id в массиве.
+ * ETag снимка вычисляется один раз при загрузке по его содержимому.
+ */
+public final class ReferenceSnapshot<T> {
+    private static final ReferenceSnapshot<?> EMPTY = new ReferenceSnapshot<>(new Object[0], List.of());
+
+    private final Object[] byId;
+    private final List<T> values;
+    private final String etag;
+
+    private ReferenceSnapshot(Object[] byId, List<T> values) {
+        this.byId = byId;
+        this.values = values;
+        CRC32 checksum = new CRC32();
+        checksum.update(values.toString().getBytes(StandardCharsets.UTF_8));
+        this.etag = Long.toHexString(checksum.getValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ReferenceSnapshot<T> empty() {
+        return (ReferenceSnapshot<T>) EMPTY;
+    }
+
+    public static <T> ReferenceSnapshot<T> of(List<T> values, ToIntFunction<T> idExtractor) {
+        int maxId = -1;
+        for (T value : values) {
+            int id = idExtractor.applyAsInt(value);
+            if (id < 0) {
+                throw new IllegalArgumentException("Отрицательный id в справочнике: " + id);
+            }
+            maxId = Math.max(maxId, id);
+        }
+        Object[] byId = new Object[maxId + 1];
+        for (T value : values) {
+            byId[idExtractor.applyAsInt(value)] = value;
+        }
+        return new ReferenceSnapshot<>(byId, List.copyOf(values));
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(Integer id) {
+        if (id == null || id < 0 || id >= byId.length) {
+            return null;
+        }
+        return (T) byId[id];
+    }
+
+    public boolean contains(Integer id) {
+        return get(id) != null;
+    }
+
+    public List<T> values() {
+        return values;
+    }
+
+    public String etag() {
+        return etag;
+    }
+}
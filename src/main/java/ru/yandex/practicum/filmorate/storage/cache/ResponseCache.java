@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.InternalServiceException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.db.film.FilmListener;
+import ru.yandex.practicum.filmorate.storage.db.like.LikeListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кэш готовых тел ответов: JSON и его сжатая gzip копия хранятся как массивы байт и отдаются
+ * без повторной сериализации. Ответы справочников привязаны к их ETag, ответы с фильмами
+ * сбрасываются после каждого зафиксированного лайка и каждого сохранения фильма.
+ */
+@Slf4j
+@Component
+public class ResponseCache implements LikeListener, FilmListener {
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final Map<String, CachedResponse> responses = new ConcurrentHashMap<>();
+    /**
+     * Поколение данных о фильмах. Ответ, сериализованный в прошлом поколении, считается устаревшим,
+     * даже если был записан в кэш уже после сброса.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public ResponseCache(ObjectMapper objectMapper,
+                         @Value("${filmorate.response-cache.max-entries:256}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+    }
+
+    public record CachedResponse(String version, byte[] json, byte[] gzip) {
+    }
+
+    /**
+     * Ответ справочника: пересериализуется только при смене версии (ETag) справочника.
+     */
+    public CachedResponse get(String key, String version, Supplier<?> body) {
+        CachedResponse cached = responses.get(key);
+        if (cached != null && cached.version().equals(version)) {
+            return cached;
+        }
+        log.trace("Ответ {} версии {} отсутствует в кэше", key, version);
+        CachedResponse serialized = serialize(version, body.get());
+        if (responses.size() >= maxEntries) {
+            responses.clear();
+        }
+        responses.put(key, serialized);
+        return serialized;
+    }
+
+    /**
+     * Ответ с данными фильмов: действует до следующего лайка или сохранения фильма.
+     */
+    public CachedResponse get(String key, Supplier<?> body) {
+        return get(key, "g" + generation.get(), body);
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public void onLike(long filmId, long userId) {
+        invalidate();
+    }
+
+    @Override
+    public void onDislike(long filmId, long userId) {
+        invalidate();
+    }
+
+    @Override
+    public void onFilmSaved(Film film) {
+        invalidate();
+    }
+
+    private CachedResponse serialize(String version, Object body) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException exception) {
+            throw new InternalServiceException("Не удалось сериализовать ответ: " + exception.getMessage());
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return new CachedResponse(version, json, compressed.toByteArray());
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.storage.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.InternalServiceException;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Выполняет schema.sql и data.sql, только если они изменились с прошлого запуска. Контрольная сумма
+ * SHA-256 обоих скриптов хранится в таблице schema_checksum, которую schema.sql не удаляет.
+ * Если сумма совпадает, база данных уже в нужном состоянии: таблицы не пересоздаются,
+ * а накопленные данные сохраняются между перезапусками.
+ */
+@Slf4j
+public class ChecksumScriptDatabaseInitializer extends SqlDataSourceScriptDatabaseInitializer {
+    private static final String OPTIONAL_PREFIX = "optional:";
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlInitializationProperties properties;
+    private final ResourcePatternResolver resourceResolver = new PathMatchingResourcePatternResolver();
+
+    public ChecksumScriptDatabaseInitializer(DataSource dataSource, SqlInitializationProperties properties) {
+        super(dataSource, properties);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean initializeDatabase() {
+        if (properties.getMode() == DatabaseInitializationMode.NEVER) {
+            return false;
+        }
+        String checksum = checksum();
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_checksum (checksum VARCHAR(64) NOT NULL)");
+        if (jdbcTemplate.queryForList("SELECT checksum FROM schema_checksum", String.class).contains(checksum)) {
+            log.info("Схема базы данных актуальна, скрипты инициализации не выполняются");
+            return false;
+        }
+        boolean initialized = super.initializeDatabase();
+        if (initialized) {
+            jdbcTemplate.update("DELETE FROM schema_checksum");
+            jdbcTemplate.update("INSERT INTO schema_checksum (checksum) VALUES (?)", checksum);
+            log.info("База данных инициализирована, контрольная сумма скриптов {}", checksum);
+        }
+        return initialized;
+    }
+
+    private String checksum() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String location : locations(properties.getSchemaLocations(), "classpath*:schema.sql")) {
+                update(digest, location);
+            }
+            for (String location : locations(properties.getDataLocations(), "classpath*:data.sql")) {
+                update(digest, location);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException exception) {
+            throw new InternalServiceException("Не удалось вычислить контрольную сумму скриптов инициализации: "
+                    + exception.getMessage());
+        }
+    }
+
+    private void update(MessageDigest digest, String location) throws IOException {
+        String pattern = location.startsWith(OPTIONAL_PREFIX) ? location.substring(OPTIONAL_PREFIX.length()) : location;
+        for (Resource resource : resourceResolver.getResources(pattern)) {
+            if (resource.exists()) {
+                digest.update(resource.getContentAsByteArray());
+            }
+        }
+    }
+
+    private static List<String> locations(List<String> configured, String defaultLocation) {
+        return configured == null || configured.isEmpty() ? List.of(defaultLocation) : configured;
+    }
+}
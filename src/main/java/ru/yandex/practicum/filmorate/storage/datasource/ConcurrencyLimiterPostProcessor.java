@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.storage.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * В режиме виртуальных потоков оборачивает каждый пул соединений в {@link ConcurrencyLimitingDataSource}.
+ * Прокси и маршрутизаторы поверх пулов не оборачиваются, чтобы одно соединение не занимало два разрешения.
+ * Если filmorate.db.max-concurrency не задан, лимит равен размеру пула Hikari.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class ConcurrencyLimiterPostProcessor implements BeanPostProcessor {
+    private static final int DEFAULT_MAX_CONCURRENCY = 10;
+    private final int maxConcurrency;
+    private final long acquireTimeoutMs;
+
+    public ConcurrencyLimiterPostProcessor(@Value("${filmorate.db.max-concurrency:0}") int maxConcurrency,
+                                           @Value("${filmorate.db.acquire-timeout-ms:30000}") long acquireTimeoutMs) {
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource) || bean instanceof DelegatingDataSource
+                || bean instanceof AbstractRoutingDataSource) {
+            return bean;
+        }
+        int permits = maxConcurrency;
+        if (permits <= 0) {
+            permits = dataSource instanceof HikariDataSource hikari
+                    ? hikari.getMaximumPoolSize()
+                    : DEFAULT_MAX_CONCURRENCY;
+        }
+        return new ConcurrencyLimitingDataSource(dataSource, permits, acquireTimeoutMs);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Разделение чтения и записи между основной базой и репликой. Включается, если задан
+ * filmorate.datasource.replica.url. Транзакции с readOnly = true получают соединение реплики,
+ * остальные — основной базы. Соединение берётся лениво, в момент первого запроса, когда признак
+ * readOnly уже выставлен менеджером транзакций.
+ * <p>
+ * filmorate.datasource.replica.max-lag-ms — допустимое отставание реплики. {@link ReplicaLagMonitor} измеряет его
+ * по строке-пульсу и при превышении отправляет все чтения в основную базу. Поэтому реплике, которой разрешено
+ * читать, хватает max-lag-ms плюс период пульса, чтобы догнать любую запись, и на это же время после своей
+ * записи клиент читает из основной базы.
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.datasource.replica.url")
+public class ReadReplicaConfiguration implements WebMvcConfigurer {
+    private final long maxLagMs;
+    private final long heartbeatMs;
+    private final ReadYourWritesInterceptor readYourWritesInterceptor;
+
+    public ReadReplicaConfiguration(@Value("${filmorate.datasource.replica.max-lag-ms:1000}") long maxLagMs,
+                                    @Value("${filmorate.datasource.replica.heartbeat-ms:250}") long heartbeatMs) {
+        this.maxLagMs = maxLagMs;
+        this.heartbeatMs = heartbeatMs;
+        this.readYourWritesInterceptor = new ReadYourWritesInterceptor(maxLagMs + heartbeatMs);
+    }
+
+    @Bean
+    public DataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public DataSource replicaDataSource(DataSourceProperties properties,
+                                        @Value("${filmorate.datasource.replica.url}") String url,
+                                        @Value("${filmorate.datasource.replica.username:${spring.datasource.username:}}")
+                                        String username,
+                                        @Value("${filmorate.datasource.replica.password:${spring.datasource.password:}}")
+                                        String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primary,
+                                               @Qualifier("replicaDataSource") DataSource replica) {
+        return new ReplicaLagMonitor(primary, replica, maxLagMs, heartbeatMs);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReadRoutingDataSource(primary, replica,
+                replicaLagMonitor::isReplicaUsable));
+        return dataSource;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(readYourWritesInterceptor);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(readYourWritesInterceptor);
+    }
+}
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.storage.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Источник соединений для транзакций только на чтение: по умолчанию реплика, но если клиент недавно
+ * что-то записал, его чтения идут в основную базу, чтобы он увидел собственные изменения. Пока реплика
+ * отстаёт сильнее допустимого, в основную базу идут все чтения.
+ */
+public class ReadRoutingDataSource extends AbstractRoutingDataSource {
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+    private final BooleanSupplier replicaUsable;
+
+    public ReadRoutingDataSource(DataSource primary, DataSource replica, BooleanSupplier replicaUsable) {
+        this.replicaUsable = replicaUsable;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(replica);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public static void requirePrimary(boolean required) {
+        if (required) {
+            PRIMARY_REQUIRED.set(Boolean.TRUE);
+        } else {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get()) || !replicaUsable.getAsBoolean() ? PRIMARY : REPLICA;
+    }
+}
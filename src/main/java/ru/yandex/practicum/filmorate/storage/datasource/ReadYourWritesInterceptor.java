@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.storage.datasource;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Запоминает время последней успешной записи каждого клиента и в течение окна stickyMs после неё
+ * направляет его чтения в основную базу. Клиент определяется по заголовку X-Client-Id,
+ * а при его отсутствии — по адресу.
+ * <p>
+ * Выбор базы хранится в ThreadLocal потока запроса. Ответы, которые дописываются в другом потоке
+ * (StreamingResponseBody), получают его через атрибут запроса: перехватчик зарегистрирован и для асинхронной
+ * обработки и выставляет признак в рабочем потоке на время её выполнения.
+ */
+@Slf4j
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor, CallableProcessingInterceptor {
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+    private static final String PRIMARY_REQUIRED_ATTRIBUTE = ReadYourWritesInterceptor.class.getName() + ".PRIMARY";
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final int EVICTION_THRESHOLD = 10_000;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final long stickyNanos;
+
+    public ReadYourWritesInterceptor(long stickyMs) {
+        this.stickyNanos = stickyMs * 1_000_000;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Long lastWrite = lastWrites.get(clientId(request));
+        boolean sticky = lastWrite != null && System.nanoTime() - lastWrite < stickyNanos;
+        ReadRoutingDataSource.requirePrimary(sticky);
+        request.setAttribute(PRIMARY_REQUIRED_ATTRIBUTE, sticky);
+        if (sticky) {
+            log.trace("Чтения клиента {} направлены в основную базу", clientId(request));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        ReadRoutingDataSource.requirePrimary(false);
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        Object sticky = request.getAttribute(PRIMARY_REQUIRED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        ReadRoutingDataSource.requirePrimary(Boolean.TRUE.equals(sticky));
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        ReadRoutingDataSource.requirePrimary(false);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception exception) {
+        ReadRoutingDataSource.requirePrimary(false);
+        if (READ_METHODS.contains(request.getMethod()) || exception != null || response.getStatus() >= 400) {
+            return;
+        }
+        long now = System.nanoTime();
+        lastWrites.put(clientId(request), now);
+        if (lastWrites.size() > EVICTION_THRESHOLD) {
+            lastWrites.values().removeIf(time -> now - time >= stickyNanos);
+        }
+    }
+
+    private static String clientId(HttpServletRequest request) {
+        String clientId = request.getHeader(CLIENT_ID_HEADER);
+        return clientId != null && !clientId.isBlank() ? clientId : request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.storage.datasource;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измеряет отставание реплики по строке-пульсу. Раз в heartbeat-ms монитор записывает в основную базу
+ * текущее время и сразу читает эту строку с реплики: отставание — разница между текущим временем и последним
+ * пульсом, который успел дойти до реплики. Оценка завышена не больше чем на период пульса, поэтому реальное
+ * отставание годной реплики не превышает max-lag-ms.
+ * <p>
+ * Пока отставание больше max-lag-ms, строка не читается или измерений ещё не было, реплика считается
+ * негодной и все чтения идут в основную базу.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    private static final long UNKNOWN = Long.MAX_VALUE;
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMs;
+    private final long heartbeatMs;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long lagMs = UNKNOWN;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, long maxLagMs, long heartbeatMs) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMs = maxLagMs;
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::beat, 0, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public boolean isReplicaUsable() {
+        return lagMs <= maxLagMs;
+    }
+
+    public long getLagMs() {
+        return lagMs;
+    }
+
+    /**
+     * Записывает пульс в основную базу и измеряет, насколько от него отстаёт реплика.
+     */
+    void beat() {
+        long now = System.currentTimeMillis();
+        long measured;
+        try {
+            primary.update("MERGE INTO replica_heartbeat (id, beat_at) KEY (id) VALUES (1, ?)", now);
+            List<Long> seen = replica.queryForList("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Long.class);
+            measured = seen.isEmpty() ? UNKNOWN : Math.max(0, now - seen.get(0));
+        } catch (DataAccessException exception) {
+            log.trace("Не удалось измерить отставание реплики: {}", exception.getMessage());
+            measured = UNKNOWN;
+        }
+        boolean wasUsable = isReplicaUsable();
+        lagMs = measured;
+        if (wasUsable && !isReplicaUsable()) {
+            log.info("Реплика отстаёт больше чем на {} мс, чтения переведены в основную базу", maxLagMs);
+        } else if (!wasUsable && isReplicaUsable()) {
+            log.info("Реплика догнала основную базу, чтения снова идут в реплику");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.storage.datasource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+
+/**
+ * Заменяет стандартную инициализацию схемы Spring Boot на {@link ChecksumScriptDatabaseInitializer}.
+ * Отключается настройкой filmorate.sql.init.skip-if-current=false — тогда скрипты выполняются
+ * при каждом запуске, как задано в spring.sql.init.mode.
+ */
+@Configuration
+@Profile("!memory")
+@ConditionalOnProperty(name = "filmorate.sql.init.skip-if-current", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(SqlInitializationProperties.class)
+public class SchemaInitializationConfiguration {
+
+    @Bean
+    public ChecksumScriptDatabaseInitializer dataSourceScriptDatabaseInitializer(
+            DataSource dataSource, SqlInitializationProperties properties) {
+        return new ChecksumScriptDatabaseInitializer(dataSource, properties);
+    }
+}
@@ -2,27 +2,51 @@ package ru.yandex.practicum.filmorate.storage.db.film;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.storage.db.TransactionHooks;
+import ru.yandex.practicum.filmorate.storage.db.genre.GenreDao;
+import ru.yandex.practicum.filmorate.storage.db.mpa.MpaDao;
+import ru.yandex.practicum.filmorate.storage.mapper.FilmListExtractor;
+import ru.yandex.practicum.filmorate.storage.mapper.FilmRowCallbackHandler;
 import ru.yandex.practicum.filmorate.storage.mapper.GenreMapper;
 
 @Slf4j
 @Component("FilmDbStorage")
+@Profile("!memory")
 @RequiredArgsConstructor
 public class FilmDbStorage implements FilmStorage {
+    private static final String FILM_DETAILS_JOINS = """
+            LEFT OUTER JOIN film_mpa AS m ON f.mpa_id = m.mpa_id
+            LEFT OUTER JOIN film_genre AS fg ON f.film_id = fg.film_id
+            LEFT OUTER JOIN genre AS g ON fg.genre_id = g.genre_id
+            """;
+    private static final int EXPORT_FETCH_SIZE = 1000;
     private final JdbcTemplate jdbcTemplate;
+    private final GenreDao genreDao;
+    private final MpaDao mpaDao;
+    private final List<FilmListener> listeners;
 
     @Override
     public Film createFilm(Film film) {
@@ -45,55 +69,183 @@ public class FilmDbStorage implements FilmStorage {
 
         long filmId = keyHolder.getKey().longValue();
         film.setId(filmId);
+        notifySaved(List.of(film));
         return film;
     }
 
+    @Override
+    public List<Film> createFilms(List<Film> films) {
+        log.debug("createFilms({} шт.)", films.size());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(
+                "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)",
+                new String[]{"film_id"}), new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Film film = films.get(i);
+                        ps.setString(1, film.getName());
+                        ps.setString(2, film.getDescription());
+                        ps.setDate(3, Date.valueOf(film.getReleaseDate()));
+                        ps.setLong(4, film.getDuration());
+                        ps.setInt(5, film.getMpa().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+
+        List<Object[]> filmGenres = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            film.setId(((Number) keyHolder.getKeyList().get(i).get("film_id")).longValue());
+            filmGenres.addAll(toGenreArgs(film.getId(), film.getGenres()));
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)", filmGenres);
+        notifySaved(films);
+        log.trace("В базу данных добавлено {} фильмов и {} связей с жанрами", films.size(), filmGenres.size());
+        return films;
+    }
+
     @Override
     public Film updateFilm(Film film) {
         log.debug("updateFilm({}).", film);
         jdbcTemplate.update(
-                "UPDATE films SET name=?, description=?, release_date=?, duration=?, mpa_id=? WHERE film_id=?",
+                "UPDATE films SET name=?, description=?, release_date=?, duration=?, mpa_id=?, version=version + 1 "
+                        + "WHERE film_id=?",
                 film.getName(),
                 film.getDescription(),
                 Date.valueOf(film.getReleaseDate()),
                 film.getDuration(),
                 film.getMpa().getId(),
                 film.getId());
-        Film thisFilm = getFilmById(film.getId());
-        log.trace("Фильм {} был обновлен в базе данных", thisFilm);
-        return thisFilm;
+        notifySaved(List.of(film));
+        log.trace("Фильм {} был обновлен в базе данных", film);
+        return film;
     }
 
     @Override
     public Film getFilmById(Long id) {
         log.debug("getFilmById({})", id);
-        Film thisFilm = jdbcTemplate.queryForObject(
-                "SELECT film_id, name, description, release_date, duration, mpa_id FROM films WHERE film_id=?",
-                new FilmMapper(), id);
+        List<Film> films = jdbcTemplate.query("""
+                SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, f.like_count,
+                       m.mpa_rating, fg.genre_id, g.genre_type
+                FROM films AS f
+                """ + FILM_DETAILS_JOINS + """
+                WHERE f.film_id=?
+                ORDER BY fg.genre_id""", new FilmListExtractor(), id);
+        if (films.isEmpty()) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        Film thisFilm = films.get(0);
         log.trace("Фильм: {} ", thisFilm);
         return thisFilm;
     }
 
+    /**
+     * ETag фильма из id, версии и числа лайков: версия растёт при каждом изменении фильма и его жанров,
+     * а лайки входят в тело ответа, но версию не меняют.
+     */
+    @Override
+    public String getFilmETag(Long id) {
+        log.debug("getFilmETag({})", id);
+        return jdbcTemplate.queryForObject("SELECT version, like_count FROM films WHERE film_id=?",
+                (rs, rowNum) -> id + "-" + rs.getLong("version") + "-" + rs.getLong("like_count"), id);
+    }
+
+    /**
+     * Фильмы в порядке переданных id; отсутствующие в базе id пропускаются.
+     */
+    @Override
+    public List<Film> getFilmsByIds(long[] ids) {
+        log.debug("getFilmsByIds({} шт.)", ids.length);
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        Long[] filmIds = Arrays.stream(ids).boxed().toArray(Long[]::new);
+        List<Film> films = jdbcTemplate.query("""
+                SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, f.like_count,
+                       m.mpa_rating, fg.genre_id, g.genre_type
+                FROM films AS f
+                """ + FILM_DETAILS_JOINS + """
+                WHERE f.film_id = ANY (?)
+                ORDER BY f.film_id, fg.genre_id""", new FilmListExtractor(), (Object) filmIds);
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (Film film : films) {
+            filmsById.put(film.getId(), film);
+        }
+        List<Film> ordered = new ArrayList<>(films.size());
+        for (long id : ids) {
+            Film film = filmsById.get(id);
+            if (film != null) {
+                ordered.add(film);
+            }
+        }
+        log.trace("Фильмы по списку id: {}", ordered);
+        return ordered;
+    }
+
     @Override
     public List<Film> getFilms() {
         log.debug("getFilms()");
-        List<Film> films = jdbcTemplate.query(
-                "SELECT film_id, name, description, release_date, duration, mpa_id FROM films", new FilmMapper());
+        List<Film> films = jdbcTemplate.query("""
+                SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, f.like_count,
+                       m.mpa_rating, fg.genre_id, g.genre_type
+                FROM films AS f
+                """ + FILM_DETAILS_JOINS + """
+                ORDER BY f.film_id, fg.genre_id""", new FilmListExtractor());
         log.trace("Фильмы в базе данных: {}", films);
         return films;
     }
 
+    @Override
+    public List<Film> getFilmsAfter(Long afterId, Integer limit) {
+        log.debug("getFilmsAfter({}, {})", afterId, limit);
+        List<Film> films = jdbcTemplate.query("""
+                SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, f.like_count,
+                       m.mpa_rating, fg.genre_id, g.genre_type
+                FROM (SELECT film_id, name, description, release_date, duration, mpa_id, like_count
+                      FROM films
+                      WHERE film_id > ?
+                      ORDER BY film_id
+                      LIMIT ?) AS f
+                """ + FILM_DETAILS_JOINS + """
+                ORDER BY f.film_id, fg.genre_id""", new FilmListExtractor(), afterId, limit);
+        log.trace("Страница фильмов после id {}: {}", afterId, films);
+        return films;
+    }
+
+    @Override
+    public void forEachFilm(Consumer<Film> action) {
+        log.debug("forEachFilm()");
+        FilmRowCallbackHandler handler = new FilmRowCallbackHandler(film -> action.accept(resolveReferences(film)));
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("""
+                            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id,
+                                   f.like_count, fg.genre_id
+                            FROM films AS f
+                            LEFT OUTER JOIN film_genre AS fg ON f.film_id = fg.film_id
+                            ORDER BY f.film_id, fg.genre_id""",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(EXPORT_FETCH_SIZE);
+            return ps;
+        }, handler);
+        handler.flush();
+    }
+
     @Override
     public List<Film> getPopularMovies(Integer count) {
         log.debug("getPopularMovies({})", count);
-        List<Film> popularMovies = jdbcTemplate.query(
-                """
-                        SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id\s
-                        FROM likes as l
-                        RIGHT OUTER JOIN films as f ON f.film_id=l.film_id
-                        GROUP BY f.film_id
-                        ORDER BY COUNT(l.user_id) DESC
-                        LIMIT ?""", new FilmMapper(), count);
+        List<Film> popularMovies = jdbcTemplate.query("""
+                SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, f.like_count,
+                       m.mpa_rating, fg.genre_id, g.genre_type
+                FROM (SELECT film_id, name, description, release_date, duration, mpa_id, like_count
+                      FROM films
+                      ORDER BY like_count DESC, film_id
+                      LIMIT ?) AS f
+                """ + FILM_DETAILS_JOINS + """
+                ORDER BY f.like_count DESC, f.film_id, fg.genre_id""", new FilmListExtractor(), count);
         log.trace("Самые популярные фильмы: {}", popularMovies);
         return popularMovies;
     }
@@ -101,30 +253,44 @@ public class FilmDbStorage implements FilmStorage {
     @Override
     public Boolean isContains(Long id) {
         log.debug("isContains({})", id);
-        try {
-            getFilmById(id);
-            log.trace("Фильм с идентификатором {} был найден", id);
-            return true;
-        } catch (EmptyResultDataAccessException exception) {
-            log.trace("Информации для фильма с идентификатором {} не найдено", id);
-            return false;
-        }
+        Boolean isContains = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM films WHERE film_id=?)", Boolean.class, id);
+        log.trace("Фильм с идентификатором {} найден: {}", id, isContains);
+        return Boolean.TRUE.equals(isContains);
     }
 
     @Override
     public void addGenres(Long filmId, Set<Genre> genres) {
         log.debug("addGenres({}, {})", filmId, genres);
-        for (Genre genre : genres) {
-            jdbcTemplate.update("INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)", filmId, genre.getId());
-            log.trace("Жанры были добавлены к фильму с идентификатором {}", filmId);
-        }
+        jdbcTemplate.batchUpdate("INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)",
+                toGenreArgs(filmId, genres));
+        log.trace("Жанры были добавлены к фильму с идентификатором {}", filmId);
     }
 
     @Override
-    public void updateGenres(Long filmId, Set<Genre> genres) {
-        log.debug("updateGenres({}, {})", filmId, genres);
-        deleteGenres(filmId);
-        addGenres(filmId, genres);
+    public void updateGenres(Long filmId, Set<Genre> oldGenres, Set<Genre> newGenres) {
+        log.debug("updateGenres({}, {}, {})", filmId, oldGenres, newGenres);
+        Set<Integer> oldIds = toGenreIds(oldGenres);
+        Set<Integer> newIds = toGenreIds(newGenres);
+        Set<Genre> removed = new LinkedHashSet<>();
+        for (Genre genre : oldGenres) {
+            if (!newIds.contains(genre.getId())) {
+                removed.add(genre);
+            }
+        }
+        Set<Genre> added = new LinkedHashSet<>();
+        for (Genre genre : newGenres) {
+            if (!oldIds.contains(genre.getId())) {
+                added.add(genre);
+            }
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM film_genre WHERE film_id=? AND genre_id=?",
+                toGenreArgs(filmId, removed));
+        addGenres(filmId, added);
+        if (!removed.isEmpty() || !added.isEmpty()) {
+            jdbcTemplate.update("UPDATE films SET version=version + 1 WHERE film_id=?", filmId);
+        }
+        log.trace("У фильма {} удалено жанров: {}, добавлено: {}", filmId, removed.size(), added.size());
     }
 
     @Override
@@ -144,5 +310,44 @@ public class FilmDbStorage implements FilmStorage {
         jdbcTemplate.update("DELETE FROM film_genre WHERE film_id=?", filmId);
         log.trace("Все жанры фильма с идентификатором {} были удалены", filmId);
     }
-}
 
+    private static List<Object[]> toGenreArgs(Long filmId, Set<Genre> genres) {
+        List<Object[]> args = new ArrayList<>(genres.size());
+        for (Genre genre : genres) {
+            args.add(new Object[]{filmId, genre.getId()});
+        }
+        return args;
+    }
+
+    private static Set<Integer> toGenreIds(Set<Genre> genres) {
+        Set<Integer> ids = new HashSet<>();
+        for (Genre genre : genres) {
+            ids.add(genre.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Слушатели получают фильм после фиксации транзакции, когда жанры фильма уже записаны.
+     */
+    private void notifySaved(List<Film> films) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            for (Film film : films) {
+                listeners.forEach(listener -> listener.onFilmSaved(film));
+            }
+        });
+    }
+
+    private Film resolveReferences(Film film) {
+        film.setMpa(mpaDao.getMpaById(film.getMpa().getId()));
+        Set<Genre> genres = new LinkedHashSet<>();
+        for (Genre genre : film.getGenres()) {
+            genres.add(genreDao.getGenreById(genre.getId()));
+        }
+        film.setGenres(genres);
+        return film;
+    }
+}
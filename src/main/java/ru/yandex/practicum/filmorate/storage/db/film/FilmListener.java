@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.storage.db.film;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+/**
+ * Получает сохранённый фильм с жанрами и MPA после фиксации транзакции создания или обновления.
+ */
+public interface FilmListener {
+
+    void onFilmSaved(Film film);
+}
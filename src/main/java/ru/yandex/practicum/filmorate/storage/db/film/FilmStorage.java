@@ -5,24 +5,35 @@ import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
     Film createFilm(Film film);
 
+    List<Film> createFilms(List<Film> films);
+
     Film updateFilm(Film film);
 
     Film getFilmById(Long id);
 
+    String getFilmETag(Long id);
+
+    List<Film> getFilmsByIds(long[] ids);
+
     List<Film> getFilms();
 
+    List<Film> getFilmsAfter(Long afterId, Integer limit);
+
+    void forEachFilm(Consumer<Film> action);
+
     List<Film> getPopularMovies(Integer count);
 
     Boolean isContains(Long id);
 
     void addGenres(Long filmId, Set<Genre> genres);
 
-    void updateGenres(Long filmId, Set<Genre> genres);
+    void updateGenres(Long filmId, Set<Genre> oldGenres, Set<Genre> newGenres);
 
     Set<Genre> getGenres(Long filmId);
 
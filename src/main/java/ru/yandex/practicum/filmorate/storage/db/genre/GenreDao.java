@@ -11,4 +11,6 @@ public interface GenreDao {
     List<Genre> getGenres();
 
     boolean isContains(Integer id);
+
+    String getGenresETag();
 }
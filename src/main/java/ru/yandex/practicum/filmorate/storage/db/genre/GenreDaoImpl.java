@@ -1,35 +1,52 @@
 package ru.yandex.practicum.filmorate.storage.db.genre;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceSnapshot;
 import ru.yandex.practicum.filmorate.storage.mapper.GenreMapper;
 
 import java.util.List;
 
 @Slf4j
 @Component
+@Profile("!memory")
 @RequiredArgsConstructor
 public class GenreDaoImpl implements GenreDao {
     private final JdbcTemplate jdbcTemplate;
+    private volatile ReferenceSnapshot<Genre> snapshot = ReferenceSnapshot.empty();
+
+    @PostConstruct
+    public void refresh() {
+        log.debug("refresh()");
+        List<Genre> genreList = jdbcTemplate.query("SELECT genre_id, genre_type FROM genre ORDER BY genre_id",
+                new GenreMapper());
+        snapshot = ReferenceSnapshot.of(genreList, Genre::getId);
+        log.trace("Справочник жанров загружен: {}", genreList);
+    }
 
     @Override
     public Genre getGenreById(Integer id) {
         log.debug("getGenreById({})", id);
-        Genre genre = jdbcTemplate.queryForObject("SELECT genre_id, genre_type FROM genre WHERE genre_id=?",
-                new GenreMapper(), id);
+        Genre genre = snapshot.get(id);
+        if (genre == null) {
+            throw new EmptyResultDataAccessException(1);
+        }
         log.trace("Тип жанра с id {} был найден", id);
-        return genre;
+        return copyOf(genre);
     }
 
     @Override
     public List<Genre> getGenres() {
         log.debug("getGenres()");
-        List<Genre> genreList = jdbcTemplate.query("SELECT genre_id, genre_type FROM genre ORDER BY genre_id",
-                new GenreMapper());
+        List<Genre> genreList = snapshot.values().stream()
+                .map(GenreDaoImpl::copyOf)
+                .toList();
         log.trace("Все типы жанров: {}", genreList);
         return genreList;
     }
@@ -37,13 +54,17 @@ public class GenreDaoImpl implements GenreDao {
     @Override
     public boolean isContains(Integer id) {
         log.debug("isContains({})", id);
-        try {
-            getGenreById(id);
-            log.trace("Жанр с идентификатором {} был найден", id);
-            return true;
-        } catch (EmptyResultDataAccessException exception) {
-            log.trace("Нет информации для жанра с идентификатором {}", id);
-            return false;
-        }
+        boolean isContains = snapshot.contains(id);
+        log.trace("Жанр с идентификатором {} найден: {}", id, isContains);
+        return isContains;
+    }
+
+    @Override
+    public String getGenresETag() {
+        return snapshot.etag();
+    }
+
+    private static Genre copyOf(Genre genre) {
+        return new Genre(genre.getId(), genre.getName());
     }
 }
@@ -1,12 +1,16 @@
 package ru.yandex.practicum.filmorate.storage.db.like;
 
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.util.Collection;
+
 public interface LikeDao {
 
     void like(Long filmId, Long userId);
 
     void dislike(Long filmId, Long userId);
 
-    int countLikes(Long filmId);
-
     boolean isLiked(Long filmId, Long userId);
+
+    void applyChanges(Collection<Like> liked, Collection<Like> disliked);
 }
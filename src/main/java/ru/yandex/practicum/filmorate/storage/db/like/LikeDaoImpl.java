@@ -2,42 +2,51 @@ package ru.yandex.practicum.filmorate.storage.db.like;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.db.TransactionHooks;
 import ru.yandex.practicum.filmorate.storage.mapper.LikeMapper;
 
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Component
+@Profile("!memory")
 @RequiredArgsConstructor
 public class LikeDaoImpl implements LikeDao {
     private final JdbcTemplate jdbcTemplate;
+    private final List<LikeListener> listeners;
 
     @Override
+    @Transactional
     public void like(Long filmId, Long userId) {
         log.debug("like({}, {})", filmId, userId);
         jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", filmId, userId);
+        jdbcTemplate.update("UPDATE films SET like_count=like_count + 1 WHERE film_id=?", filmId);
+        TransactionHooks.afterCommit(() -> listeners.forEach(listener -> listener.onLike(filmId, userId)));
         log.trace("Фильм {} понравился пользователю {}", filmId, userId);
     }
 
     @Override
+    @Transactional
     public void dislike(Long filmId, Long userId) {
         log.debug("dislike({}, {})", filmId, userId);
-        jdbcTemplate.update("DELETE FROM likes WHERE film_id=? AND user_id=?", filmId, userId);
+        int deleted = jdbcTemplate.update("DELETE FROM likes WHERE film_id=? AND user_id=?", filmId, userId);
+        if (deleted > 0) {
+            jdbcTemplate.update("UPDATE films SET like_count=like_count - ? WHERE film_id=?", deleted, filmId);
+            TransactionHooks.afterCommit(() -> listeners.forEach(listener -> listener.onDislike(filmId, userId)));
+        }
         log.trace("Пользователь {} убрал лайк с фильма {}", userId, filmId);
     }
 
-    @Override
-    public int countLikes(Long filmId) {
-        log.debug("countLikes({}).", filmId);
-        Integer count = Objects.requireNonNull(jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM likes WHERE film_id=?", Integer.class, filmId));
-        log.trace("Фильму {} поставили лайк {} раз", filmId, count);
-        return count;
-    }
-
     @Override
     public boolean isLiked(Long filmId, Long userId) {
         log.debug("isLiked({}, {})", filmId, userId);
@@ -51,4 +60,58 @@ public class LikeDaoImpl implements LikeDao {
             return false;
         }
     }
+
+    @Override
+    @Transactional
+    public void applyChanges(Collection<Like> liked, Collection<Like> disliked) {
+        log.debug("applyChanges({} лайков, {} отмен)", liked.size(), disliked.size());
+        List<Like> likes = new ArrayList<>(liked);
+        List<Like> dislikes = new ArrayList<>(disliked);
+        List<Object[]> likeArgs = new ArrayList<>(likes.size());
+        for (Like like : likes) {
+            likeArgs.add(new Object[]{like.getFilmId(), like.getUserId(), like.getFilmId(), like.getUserId(),
+                    like.getFilmId(), like.getUserId()});
+        }
+        List<Object[]> dislikeArgs = new ArrayList<>(dislikes.size());
+        for (Like like : dislikes) {
+            dislikeArgs.add(new Object[]{like.getFilmId(), like.getUserId()});
+        }
+        int[] inserted = jdbcTemplate.batchUpdate(
+                "INSERT INTO likes (film_id, user_id) SELECT CAST(? AS BIGINT), CAST(? AS BIGINT) "
+                        + "WHERE NOT EXISTS (SELECT 1 FROM likes WHERE film_id=? AND user_id=?) "
+                        + "AND EXISTS (SELECT 1 FROM films WHERE film_id=?) "
+                        + "AND EXISTS (SELECT 1 FROM users WHERE user_id=?)", likeArgs);
+        int[] deleted = jdbcTemplate.batchUpdate("DELETE FROM likes WHERE film_id=? AND user_id=?", dislikeArgs);
+
+        Map<Long, Long> deltas = new HashMap<>();
+        List<Like> addedLikes = new ArrayList<>();
+        List<Like> removedLikes = new ArrayList<>();
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] > 0) {
+                deltas.merge(likes.get(i).getFilmId(), 1L, Long::sum);
+                addedLikes.add(likes.get(i));
+            }
+        }
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i] > 0) {
+                deltas.merge(dislikes.get(i).getFilmId(), -1L, Long::sum);
+                removedLikes.add(dislikes.get(i));
+            }
+        }
+        List<Object[]> countArgs = new ArrayList<>(deltas.size());
+        deltas.forEach((filmId, delta) -> {
+            if (delta != 0) {
+                countArgs.add(new Object[]{delta, filmId});
+            }
+        });
+        jdbcTemplate.batchUpdate("UPDATE films SET like_count=like_count + ? WHERE film_id=?", countArgs);
+        TransactionHooks.afterCommit(() -> {
+            for (LikeListener listener : listeners) {
+                addedLikes.forEach(like -> listener.onLike(like.getFilmId(), like.getUserId()));
+                removedLikes.forEach(like -> listener.onDislike(like.getFilmId(), like.getUserId()));
+            }
+        });
+        log.trace("Применено изменений лайков: {}, затронуто фильмов: {}", likes.size() + dislikes.size(),
+                countArgs.size());
+    }
 }
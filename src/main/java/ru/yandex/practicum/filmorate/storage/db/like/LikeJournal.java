@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.storage.db.like;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал событий лайков, разбитый на сегменты likes-N.journal.
+ * Каждая запись фиксированной длины: тип события, id фильма, id пользователя и контрольная сумма CRC32 этих полей.
+ * Сегмент удаляется только после того, как его события записаны в базу данных.
+ */
+@Slf4j
+class LikeJournal implements Closeable {
+    private static final int DATA_SIZE = Byte.BYTES + 2 * Long.BYTES;
+    private static final int RECORD_SIZE = DATA_SIZE + Integer.BYTES;
+    private static final byte LIKE = 1;
+    private static final byte DISLIKE = 0;
+    private static final String PREFIX = "likes-";
+    private static final String SUFFIX = ".journal";
+    private final Path directory;
+    private final boolean fsync;
+    private FileChannel channel;
+    private long segment;
+
+    @FunctionalInterface
+    interface Replayer {
+        void apply(long filmId, long userId, boolean liked);
+    }
+
+    LikeJournal(Path directory, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        long last = segments().stream()
+                .mapToLong(LikeJournal::segmentNumber)
+                .max()
+                .orElse(0);
+        open(last + 1);
+    }
+
+    /**
+     * Воспроизводит события всех сегментов, оставшихся от предыдущего запуска, в порядке их записи.
+     * Сегмент читается до первой неполной записи или записи с неверной контрольной суммой —
+     * так выглядит обрыв при аварийном завершении.
+     */
+    void replay(Replayer replayer) throws IOException {
+        for (Path path : segments()) {
+            if (segmentNumber(path) >= segment) {
+                continue;
+            }
+            int records = 0;
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                for (byte[] bytes = in.readNBytes(RECORD_SIZE); bytes.length > 0; bytes = in.readNBytes(RECORD_SIZE)) {
+                    ByteBuffer record = ByteBuffer.wrap(bytes);
+                    if (bytes.length < RECORD_SIZE) {
+                        log.warn("Последняя запись сегмента {} не дописана и пропущена", path);
+                        break;
+                    }
+                    if (record.getInt(DATA_SIZE) != checksum(record)) {
+                        log.warn("Сегмент {} повреждён, оставшиеся записи пропущены", path);
+                        break;
+                    }
+                    byte type = record.get();
+                    replayer.apply(record.getLong(), record.getLong(), type == LIKE);
+                    records++;
+                }
+            }
+            log.trace("Сегмент {} прочитан, событий: {}", path, records);
+        }
+    }
+
+    void append(long filmId, long userId, boolean liked) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        buffer.put(liked ? LIKE : DISLIKE).putLong(filmId).putLong(userId);
+        buffer.putInt(checksum(buffer)).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Закрывает текущий сегмент и открывает следующий.
+     *
+     * @return номер закрытого сегмента
+     */
+    long rotate() throws IOException {
+        long closed = segment;
+        channel.force(false);
+        channel.close();
+        open(segment + 1);
+        return closed;
+    }
+
+    void deleteUpTo(long number) throws IOException {
+        for (Path path : segments()) {
+            if (segmentNumber(path) <= number) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private static int checksum(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, DATA_SIZE);
+        return (int) crc.getValue();
+    }
+
+    private void open(long number) throws IOException {
+        channel = FileChannel.open(directory.resolve(PREFIX + number + SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segment = number;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted((first, second) -> Long.compare(segmentNumber(first), segmentNumber(second)))
+                    .toList();
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
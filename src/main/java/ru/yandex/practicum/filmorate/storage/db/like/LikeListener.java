@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.storage.db.like;
+
+/**
+ * Получает уведомления о лайках, которые действительно изменили таблицу likes, после фиксации транзакции.
+ */
+public interface LikeListener {
+
+    void onLike(long filmId, long userId);
+
+    void onDislike(long filmId, long userId);
+}
@@ -0,0 +1,190 @@
+package ru.yandex.practicum.filmorate.storage.db.like;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.InternalServiceException;
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Режим отложенной записи лайков. События сначала попадают в журнал и в буфер, где схлопываются
+ * по паре (фильм, пользователь), а затем одним пакетом записываются в базу данных через {@link LikeDaoImpl}
+ * по достижении batch-size или по таймеру. После рестарта не записанные в базу события восстанавливаются
+ * из журнала. Счётчик like_count в базе данных при этом отстаёт от запросов не больше чем на один сброс.
+ */
+@Slf4j
+@Primary
+@Component
+@Profile("!memory")
+@ConditionalOnProperty(name = "filmorate.likes.write-behind.enabled", havingValue = "true")
+public class WriteBehindLikeDao implements LikeDao {
+    private final LikeDaoImpl likeDao;
+    private final LikeJournal journal;
+    private final int batchSize;
+    private final int capacity;
+    private final long flushIntervalMs;
+    private final ReentrantReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "like-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Map<Like, Boolean> pending = new ConcurrentHashMap<>();
+    private volatile Map<Like, Boolean> inFlight = Map.of();
+
+    public WriteBehindLikeDao(LikeDaoImpl likeDao,
+                              @Value("${filmorate.likes.write-behind.journal-dir:./db/likes-journal}") String journalDir,
+                              @Value("${filmorate.likes.write-behind.journal-fsync:false}") boolean fsync,
+                              @Value("${filmorate.likes.write-behind.batch-size:500}") int batchSize,
+                              @Value("${filmorate.likes.write-behind.capacity:100000}") int capacity,
+                              @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs)
+            throws IOException {
+        this.likeDao = likeDao;
+        this.journal = new LikeJournal(Path.of(journalDir), fsync);
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        journal.replay((filmId, userId, liked) -> pending.put(new Like(filmId, userId), liked));
+        log.info("Из журнала восстановлено событий лайков: {}", pending.size());
+        flush();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(flushIntervalMs * 10, TimeUnit.MILLISECONDS);
+            flush();
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Override
+    public void like(Long filmId, Long userId) {
+        log.debug("like({}, {})", filmId, userId);
+        record(filmId, userId, true);
+    }
+
+    @Override
+    public void dislike(Long filmId, Long userId) {
+        log.debug("dislike({}, {})", filmId, userId);
+        record(filmId, userId, false);
+    }
+
+    @Override
+    public boolean isLiked(Long filmId, Long userId) {
+        log.debug("isLiked({}, {})", filmId, userId);
+        Like like = new Like(filmId, userId);
+        Boolean liked = pending.get(like);
+        if (liked == null) {
+            liked = inFlight.get(like);
+        }
+        return liked != null ? liked : likeDao.isLiked(filmId, userId);
+    }
+
+    @Override
+    public void applyChanges(Collection<Like> liked, Collection<Like> disliked) {
+        log.debug("applyChanges({} лайков, {} отмен)", liked.size(), disliked.size());
+        liked.forEach(like -> record(like.getFilmId(), like.getUserId(), true));
+        disliked.forEach(like -> record(like.getFilmId(), like.getUserId(), false));
+    }
+
+    /**
+     * Записывает накопленные события в базу данных. Буфер подменяется пустым вместе с сегментом журнала,
+     * поэтому новые события во время записи пакета попадают уже в следующий сброс.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Like, Boolean> drained;
+            long segment;
+            rotationLock.writeLock().lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                drained = pending;
+                inFlight = drained;
+                pending = new ConcurrentHashMap<>();
+                segment = journal.rotate();
+            } finally {
+                rotationLock.writeLock().unlock();
+            }
+            try {
+                write(drained);
+                journal.deleteUpTo(segment);
+            } catch (RuntimeException | IOException exception) {
+                drained.forEach(pending::putIfAbsent);
+                throw new InternalServiceException("Не удалось записать лайки в базу данных: "
+                        + exception.getMessage());
+            } finally {
+                inFlight = Map.of();
+            }
+        } catch (IOException exception) {
+            throw new InternalServiceException("Не удалось переключить журнал лайков: " + exception.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void record(Long filmId, Long userId, boolean liked) {
+        if (pending.size() >= capacity) {
+            flush();
+        }
+        rotationLock.readLock().lock();
+        try {
+            journal.append(filmId, userId, liked);
+            pending.put(new Like(filmId, userId), liked);
+        } catch (IOException exception) {
+            throw new InternalServiceException("Не удалось записать событие лайка в журнал: "
+                    + exception.getMessage());
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        if (pending.size() >= batchSize && !flushLock.isLocked()) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    private void write(Map<Like, Boolean> drained) {
+        List<Like> liked = new ArrayList<>();
+        List<Like> disliked = new ArrayList<>();
+        drained.forEach((like, isLiked) -> (isLiked ? liked : disliked).add(like));
+        likeDao.applyChanges(liked, disliked);
+        log.trace("В базу данных записано событий лайков: {}", drained.size());
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (InternalServiceException exception) {
+            log.trace("Сброс лайков будет повторён: {}", exception.getMessage());
+        }
+    }
+}
@@ -11,4 +11,6 @@ public interface MpaDao {
     List<Mpa> getMpaList();
 
     boolean isContains(Integer id);
+
+    String getMpaListETag();
 }
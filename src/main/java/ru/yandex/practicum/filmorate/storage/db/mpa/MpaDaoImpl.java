@@ -1,35 +1,52 @@
 package ru.yandex.practicum.filmorate.storage.db.mpa;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceSnapshot;
 import ru.yandex.practicum.filmorate.storage.mapper.MpaMapper;
 
 import java.util.List;
 
 @Slf4j
 @Component
+@Profile("!memory")
 @RequiredArgsConstructor
 public class MpaDaoImpl implements MpaDao {
     private final JdbcTemplate jdbcTemplate;
+    private volatile ReferenceSnapshot<Mpa> snapshot = ReferenceSnapshot.empty();
+
+    @PostConstruct
+    public void refresh() {
+        log.debug("refresh()");
+        List<Mpa> mpaList = jdbcTemplate.query("SELECT mpa_id, mpa_rating FROM film_mpa ORDER BY mpa_id",
+                new MpaMapper());
+        snapshot = ReferenceSnapshot.of(mpaList, Mpa::getId);
+        log.trace("Справочник MPA-рейтингов загружен: {}", mpaList);
+    }
 
     @Override
     public Mpa getMpaById(Integer id) {
         log.debug("getMpaById({})", id);
-        Mpa mpa = jdbcTemplate.queryForObject("SELECT mpa_id, mpa_rating FROM film_mpa WHERE mpa_id=?",
-                new MpaMapper(), id);
+        Mpa mpa = snapshot.get(id);
+        if (mpa == null) {
+            throw new EmptyResultDataAccessException(1);
+        }
         log.trace("MPA-рейтинг {} был возвращен", mpa);
-        return mpa;
+        return copyOf(mpa);
     }
 
     @Override
     public List<Mpa> getMpaList() {
         log.debug("getMpaList()");
-        List<Mpa> mpaList = jdbcTemplate.query("SELECT mpa_id, mpa_rating FROM film_mpa ORDER BY mpa_id",
-                new MpaMapper());
+        List<Mpa> mpaList = snapshot.values().stream()
+                .map(MpaDaoImpl::copyOf)
+                .toList();
         log.trace("Все MPA-рейтинги: {}", mpaList);
         return mpaList;
     }
@@ -37,13 +54,17 @@ public class MpaDaoImpl implements MpaDao {
     @Override
     public boolean isContains(Integer id) {
         log.debug("isContains({})", id);
-        try {
-            getMpaById(id);
-            log.trace("MPA с id {} был найден", id);
-            return true;
-        } catch (EmptyResultDataAccessException exception) {
-            log.trace("MPA с идентификатором {} не был найден", id);
-            return false;
-        }
+        boolean isContains = snapshot.contains(id);
+        log.trace("MPA с идентификатором {} найден: {}", id, isContains);
+        return isContains;
+    }
+
+    @Override
+    public String getMpaListETag() {
+        return snapshot.etag();
+    }
+
+    private static Mpa copyOf(Mpa mpa) {
+        return new Mpa(mpa.getId(), mpa.getName());
     }
 }
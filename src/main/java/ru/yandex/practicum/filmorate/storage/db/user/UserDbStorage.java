@@ -2,20 +2,30 @@ package ru.yandex.practicum.filmorate.storage.db.user;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
 import ru.yandex.practicum.filmorate.storage.mapper.UserMapper;
 
 import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component("UserDbStorage")
+@Profile("!memory")
 @RequiredArgsConstructor
 public class UserDbStorage implements UserStorage {
+    private static final int EXPORT_FETCH_SIZE = 1000;
     private final JdbcTemplate jdbcTemplate;
+    private final FriendGraph friendGraph;
 
     @Override
     public User createUser(User user) {
@@ -70,29 +80,54 @@ public class UserDbStorage implements UserStorage {
         return users;
     }
 
+    @Override
+    public List<User> getUsersAfter(Long afterId, Integer limit) {
+        log.debug("getUsersAfter({}, {})", afterId, limit);
+        List<User> users = jdbcTemplate.query(
+                "SELECT user_id, email, login, name, birthday FROM users "
+                        + "WHERE user_id > ? ORDER BY user_id LIMIT ?",
+                new UserMapper(), afterId, limit);
+        log.trace("Страница пользователей после id {}: {}", afterId, users);
+        return users;
+    }
+
+    @Override
+    public void forEachUser(Consumer<User> action) {
+        log.debug("forEachUser()");
+        UserMapper userMapper = new UserMapper();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT user_id, email, login, name, birthday FROM users ORDER BY user_id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(EXPORT_FETCH_SIZE);
+            return ps;
+        }, (ResultSet rs) -> action.accept(userMapper.mapRow(rs, rs.getRow())));
+    }
+
     @Override
     public List<User> getFriendsByUserId(Long userId) {
-        return jdbcTemplate.query("""
-                SELECT user_id, email, login, name, birthday
-                FROM users
-                WHERE user_id IN (SELECT friend_id
-                FROM friends as f
-                WHERE user_id=?)
-                """, new UserMapper(), userId);
+        log.debug("getFriendsByUserId({})", userId);
+        return getUsersByIds(friendGraph.getFriends(userId));
     }
 
     @Override
     public List<User> getCommonFriends(Long userId, Long friendId) {
-        return jdbcTemplate.query("""
-                SELECT user_id, email, login, name, birthday
-                FROM users
-                WHERE user_id IN (SELECT friend_id
-                FROM friends
-                WHERE user_id=? AND friend_id IN
-                (SELECT friend_id
-                FROM friends
-                WHERE user_id=?))
-                """, new UserMapper(), userId, friendId);
+        log.debug("getCommonFriends({}, {})", userId, friendId);
+        return getUsersByIds(friendGraph.getCommonFriends(userId, friendId));
+    }
+
+    @Override
+    public List<User> getUsersByIds(long[] ids) {
+        log.debug("getUsersByIds({} шт.)", ids.length);
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        Long[] userIds = Arrays.stream(ids).boxed().toArray(Long[]::new);
+        List<User> users = jdbcTemplate.query(
+                "SELECT user_id, email, login, name, birthday FROM users WHERE user_id = ANY (?) ORDER BY user_id",
+                new UserMapper(), (Object) userIds);
+        log.trace("Пользователи по списку id: {}", users);
+        return users;
     }
 
     @Override
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage.db.user;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserStorage {
 
@@ -14,9 +15,15 @@ public interface UserStorage {
 
     List<User> getUsers();
 
+    List<User> getUsersAfter(Long afterId, Integer limit);
+
+    void forEachUser(Consumer<User> action);
+
     List<User> getFriendsByUserId(Long userId);
 
     List<User> getCommonFriends(Long userId, Long friendId);
 
+    List<User> getUsersByIds(long[] ids);
+
     Boolean isContains(Long id);
 }
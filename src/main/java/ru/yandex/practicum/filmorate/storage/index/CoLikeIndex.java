@@ -0,0 +1,266 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.db.like.LikeListener;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Разреженная матрица совместных лайков фильмов: для каждого фильма — сколько пользователей лайкнули
+ * и его, и другой фильм. Строится при старте из таблицы likes и обновляется на каждый лайк за O(число лайков
+ * пользователя). Похожесть фильмов — косинусная мера co(a, b) / sqrt(likes(a) * likes(b)).
+ * <p>
+ * Лайки пользователя хранятся отсортированным по id фильма массивом, поэтому проверка «уже лайкнут»
+ * — двоичный поиск.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CoLikeIndex implements LikeListener, DeferredIndex {
+    private static final long[] EMPTY = new long[0];
+    /**
+     * Сколько лайков пользователя учитывается при подборе рекомендаций. Если лайков больше, берутся фильмы
+     * с наименьшим числом лайков: они точнее описывают вкус пользователя, чем общие хиты, и у них самые короткие
+     * строки матрицы. Выбор зависит только от текущих лайков, а не от их времени, которое нигде не хранится,
+     * поэтому одинаков до и после перезапуска.
+     */
+    private static final int MAX_RECOMMENDATION_SEEDS = 100;
+    private final ObjectProvider<JdbcTemplate> jdbcTemplateProvider;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final DeferredFill deferredFill = new DeferredFill();
+    private final Map<Long, long[]> userLikes = new HashMap<>();
+    private final Map<Long, LongIntHashMap> coLikes = new HashMap<>();
+    private LongIntHashMap likeCounts = new LongIntHashMap();
+
+    @PostConstruct
+    public void rebuild() {
+        log.debug("rebuild()");
+        JdbcTemplate jdbcTemplate = jdbcTemplateProvider.getIfAvailable();
+        if (jdbcTemplate == null) {
+            log.trace("База данных не подключена, индекс наполняется уведомлениями хранилища");
+            return;
+        }
+        ResultSetExtractor<Map<Long, long[]>> reader = CoLikeIndex::readUserLikes;
+        Map<Long, long[]> likesByUser = jdbcTemplate.query("SELECT user_id, film_id FROM likes ORDER BY user_id",
+                reader);
+        lock.writeLock().lock();
+        try {
+            userLikes.clear();
+            coLikes.clear();
+            likeCounts = new LongIntHashMap();
+            for (Map.Entry<Long, long[]> entry : likesByUser.entrySet()) {
+                long[] films = entry.getValue();
+                for (int i = 0; i < films.length; i++) {
+                    likeCounts.addTo(films[i], 1);
+                    for (int j = i + 1; j < films.length; j++) {
+                        link(films[i], films[j], 1);
+                    }
+                }
+                userLikes.put(entry.getKey(), films);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.trace("Матрица совместных лайков построена для {} пользователей", likesByUser.size());
+    }
+
+    public void clear() {
+        deferredFill.cancel();
+        lock.writeLock().lock();
+        try {
+            userLikes.clear();
+            coLikes.clear();
+            likeCounts = new LongIntHashMap();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public DeferredFill getDeferredFill() {
+        return deferredFill;
+    }
+
+    @Override
+    public void onLike(long filmId, long userId) {
+        if (deferredFill.skips()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            long[] films = userLikes.getOrDefault(userId, EMPTY);
+            int position = Arrays.binarySearch(films, filmId);
+            if (position >= 0) {
+                return;
+            }
+            for (long other : films) {
+                link(filmId, other, 1);
+            }
+            likeCounts.addTo(filmId, 1);
+            int insertAt = -position - 1;
+            long[] updated = new long[films.length + 1];
+            System.arraycopy(films, 0, updated, 0, insertAt);
+            updated[insertAt] = filmId;
+            System.arraycopy(films, insertAt, updated, insertAt + 1, films.length - insertAt);
+            userLikes.put(userId, updated);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDislike(long filmId, long userId) {
+        if (deferredFill.skips()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            long[] films = userLikes.getOrDefault(userId, EMPTY);
+            int position = Arrays.binarySearch(films, filmId);
+            if (position < 0) {
+                return;
+            }
+            long[] remaining = new long[films.length - 1];
+            System.arraycopy(films, 0, remaining, 0, position);
+            System.arraycopy(films, position + 1, remaining, position, films.length - position - 1);
+            for (long other : remaining) {
+                link(filmId, other, -1);
+            }
+            likeCounts.addTo(filmId, -1);
+            if (remaining.length == 0) {
+                userLikes.remove(userId);
+            } else {
+                userLikes.put(userId, remaining);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Фильмы, которые чаще всего лайкают вместе с данным, по убыванию похожести.
+     */
+    public long[] getSimilarFilms(long filmId, int count) {
+        deferredFill.await();
+        lock.readLock().lock();
+        try {
+            LongIntHashMap row = coLikes.get(filmId);
+            if (row == null) {
+                return EMPTY;
+            }
+            double filmLikes = likeCounts.get(filmId);
+            TopK top = new TopK(count);
+            row.forEach((other, together) ->
+                    top.offer(other, together / Math.sqrt(filmLikes * likeCounts.get(other))));
+            return top.ids();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Фильмы, похожие на понравившиеся пользователю, за исключением уже лайкнутых им.
+     * Оценка фильма — сумма совместных лайков с фильмами пользователя, делённая на корень из его популярности.
+     */
+    public long[] getRecommendations(long userId, int count) {
+        deferredFill.await();
+        lock.readLock().lock();
+        try {
+            long[] films = userLikes.getOrDefault(userId, EMPTY);
+            LongIntHashMap scores = new LongIntHashMap();
+            for (long seed : seeds(films)) {
+                LongIntHashMap row = coLikes.get(seed);
+                if (row != null) {
+                    row.forEach(scores::addTo);
+                }
+            }
+            TopK top = new TopK(count);
+            scores.forEach((other, together) -> {
+                if (Arrays.binarySearch(films, other) < 0) {
+                    top.offer(other, together / Math.sqrt(likeCounts.get(other)));
+                }
+            });
+            return top.ids();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void link(long first, long second, int delta) {
+        updateRow(first, second, delta);
+        updateRow(second, first, delta);
+    }
+
+    private void updateRow(long filmId, long other, int delta) {
+        LongIntHashMap row = coLikes.computeIfAbsent(filmId, id -> new LongIntHashMap());
+        row.addTo(other, delta);
+        if (row.size() == 0) {
+            coLikes.remove(filmId);
+        }
+    }
+
+    /**
+     * Не больше MAX_RECOMMENDATION_SEEDS лайкнутых фильмов с наименьшим числом лайков. Число лайков и позиция
+     * фильма упакованы в один long, так что отбор — одна сортировка примитивного массива.
+     */
+    private long[] seeds(long[] films) {
+        if (films.length <= MAX_RECOMMENDATION_SEEDS) {
+            return films;
+        }
+        long[] keys = new long[films.length];
+        for (int i = 0; i < films.length; i++) {
+            keys[i] = (long) likeCounts.get(films[i]) << Integer.SIZE | i;
+        }
+        Arrays.sort(keys);
+        long[] seeds = new long[MAX_RECOMMENDATION_SEEDS];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = films[(int) keys[i]];
+        }
+        return seeds;
+    }
+
+    /**
+     * Собирает лайки каждого пользователя в массив. Строки одного пользователя идут подряд, поэтому массив
+     * копируется из буфера и сортируется один раз на пользователя.
+     */
+    private static Map<Long, long[]> readUserLikes(ResultSet rs) throws SQLException {
+        Map<Long, long[]> likesByUser = new HashMap<>();
+        long[] buffer = new long[16];
+        int size = 0;
+        long userId = 0;
+        while (rs.next()) {
+            long rowUserId = rs.getLong("user_id");
+            if (size > 0 && rowUserId != userId) {
+                likesByUser.put(userId, sorted(buffer, size));
+                size = 0;
+            }
+            userId = rowUserId;
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = rs.getLong("film_id");
+        }
+        if (size > 0) {
+            likesByUser.put(userId, sorted(buffer, size));
+        }
+        return likesByUser;
+    }
+
+    private static long[] sorted(long[] buffer, int size) {
+        long[] films = Arrays.copyOf(buffer, size);
+        Arrays.sort(films);
+        return films;
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Заполнение индекса, отложенное до первого чтения. Пока оно отложено, индекс пуст и пропускает уведомления:
+ * изменение, о котором сообщает уведомление, уже есть в хранилище и попадёт в индекс при заполнении.
+ * Заполнение выполняется один раз, читатели, пришедшие во время него, ждут окончания.
+ * <p>
+ * Заполнение идёт под блокировками хранилища, которые передаёт underStoreLocks, и только под ними отмечается
+ * начатым. Поэтому уведомление, которое хранилище отправляет под своей блокировкой записи, приходит либо
+ * до заполнения и пропускается, либо после него и применяется, но никогда не учитывается дважды.
+ * Уведомление, отправленное без блокировки во время заполнения, ждёт его окончания и применяется поверх.
+ */
+public final class DeferredFill {
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Pending pending;
+    private volatile boolean filling;
+
+    private record Pending(Consumer<Runnable> underStoreLocks, Runnable populate) {
+    }
+
+    /**
+     * Откладывает заполнение пустого индекса: populate наполняет его уведомлениями о содержимом хранилища.
+     */
+    public void defer(Consumer<Runnable> underStoreLocks, Runnable populate) {
+        pending = new Pending(underStoreLocks, populate);
+    }
+
+    public void cancel() {
+        pending = null;
+    }
+
+    public boolean isPending() {
+        return pending != null;
+    }
+
+    /**
+     * Заполняет индекс, если заполнение ещё отложено. Вызывается в начале каждого чтения индекса.
+     */
+    public void await() {
+        if (pending == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            Pending current = pending;
+            if (current == null) {
+                return;
+            }
+            current.underStoreLocks().accept(() -> {
+                filling = true;
+                try {
+                    current.populate().run();
+                } finally {
+                    pending = null;
+                    filling = false;
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Нужно ли пропустить уведомление. Вызывается в начале каждого обработчика, до блокировок индекса.
+     */
+    public boolean skips() {
+        if (pending == null || lock.isHeldByCurrentThread()) {
+            return false;
+        }
+        if (filling) {
+            lock.lock();
+            lock.unlock();
+            return false;
+        }
+        // заполнение могло закончиться между двумя проверками выше
+        return pending != null;
+    }
+}
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+/**
+ * Индекс, который после восстановления каталога в памяти заполняется при первом чтении, а не при старте.
+ */
+public interface DeferredIndex {
+
+    DeferredFill getDeferredFill();
+}
@@ -0,0 +1,312 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.db.film.FilmListener;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Инвертированный индекс по названию и описанию фильмов. Для каждого слова хранится отсортированный массив id
+ * фильмов и параллельный массив весов (слово в названии весит больше, чем в описании). Списки не изменяются
+ * после публикации, поэтому поиск идёт без блокировок. Словарь упорядочен, последнее слово запроса
+ * ищется как префикс для автодополнения.
+ * <p>
+ * Перестроение собирает новый словарь целиком и подменяет им текущий, так что поиск не видит индекс
+ * наполовину заполненным. Оценки запроса считаются в отсортированных массивах id с параллельными массивами
+ * оценок, без упаковки в объекты.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex implements FilmListener, DeferredIndex {
+    private static final long[] EMPTY = new long[0];
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    private static final double PREFIX_PENALTY = 0.8;
+    private final ObjectProvider<JdbcTemplate> jdbcTemplateProvider;
+    private final DeferredFill deferredFill = new DeferredFill();
+    private volatile Contents contents = Contents.empty();
+
+    /**
+     * Словарь и слова каждого фильма. Подменяются вместе при перестроении и очистке.
+     */
+    private record Contents(ConcurrentSkipListMap<String, Posting> postings, Map<Long, String[]> filmTerms) {
+
+        static Contents empty() {
+            return new Contents(new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+
+    private record Posting(long[] ids, int[] weights) {
+
+        Posting with(long id, int weight) {
+            int position = Arrays.binarySearch(ids, id);
+            if (position >= 0) {
+                int[] updatedWeights = weights.clone();
+                updatedWeights[position] = weight;
+                return new Posting(ids, updatedWeights);
+            }
+            int insertAt = -position - 1;
+            long[] updatedIds = new long[ids.length + 1];
+            int[] updatedWeights = new int[weights.length + 1];
+            System.arraycopy(ids, 0, updatedIds, 0, insertAt);
+            System.arraycopy(weights, 0, updatedWeights, 0, insertAt);
+            updatedIds[insertAt] = id;
+            updatedWeights[insertAt] = weight;
+            System.arraycopy(ids, insertAt, updatedIds, insertAt + 1, ids.length - insertAt);
+            System.arraycopy(weights, insertAt, updatedWeights, insertAt + 1, weights.length - insertAt);
+            return new Posting(updatedIds, updatedWeights);
+        }
+
+        Posting without(long id) {
+            int position = Arrays.binarySearch(ids, id);
+            if (position < 0) {
+                return this;
+            }
+            if (ids.length == 1) {
+                return null;
+            }
+            long[] updatedIds = new long[ids.length - 1];
+            int[] updatedWeights = new int[weights.length - 1];
+            System.arraycopy(ids, 0, updatedIds, 0, position);
+            System.arraycopy(weights, 0, updatedWeights, 0, position);
+            System.arraycopy(ids, position + 1, updatedIds, position, ids.length - position - 1);
+            System.arraycopy(weights, position + 1, updatedWeights, position, weights.length - position - 1);
+            return new Posting(updatedIds, updatedWeights);
+        }
+    }
+
+    /**
+     * Оценки фильмов: отсортированные id и параллельный массив оценок.
+     */
+    private record Scores(long[] ids, double[] values) {
+        static final Scores NONE = new Scores(EMPTY, new double[0]);
+
+        /**
+         * Добавляет фильмы постинга с оценкой weight * factor; для фильма, который уже есть, остаётся большая
+         * из двух оценок.
+         */
+        Scores union(Posting posting, double factor) {
+            long[] postingIds = posting.ids();
+            int[] weights = posting.weights();
+            long[] mergedIds = new long[ids.length + postingIds.length];
+            double[] mergedValues = new double[mergedIds.length];
+            int i = 0;
+            int j = 0;
+            int size = 0;
+            while (i < ids.length || j < postingIds.length) {
+                if (j == postingIds.length || i < ids.length && ids[i] < postingIds[j]) {
+                    mergedIds[size] = ids[i];
+                    mergedValues[size++] = values[i++];
+                } else {
+                    double score = weights[j] * factor;
+                    if (i < ids.length && ids[i] == postingIds[j]) {
+                        score = Math.max(score, values[i++]);
+                    }
+                    mergedIds[size] = postingIds[j++];
+                    mergedValues[size++] = score;
+                }
+            }
+            return new Scores(Arrays.copyOf(mergedIds, size), Arrays.copyOf(mergedValues, size));
+        }
+
+        /**
+         * Оставляет фильмы, которые есть в обоих наборах, и складывает их оценки.
+         */
+        Scores intersect(Scores other) {
+            int capacity = Math.min(ids.length, other.ids.length);
+            long[] commonIds = new long[capacity];
+            double[] commonValues = new double[capacity];
+            int i = 0;
+            int j = 0;
+            int size = 0;
+            while (i < ids.length && j < other.ids.length) {
+                if (ids[i] < other.ids[j]) {
+                    i++;
+                } else if (ids[i] > other.ids[j]) {
+                    j++;
+                } else {
+                    commonIds[size] = ids[i];
+                    commonValues[size++] = values[i++] + other.values[j++];
+                }
+            }
+            return new Scores(Arrays.copyOf(commonIds, size), Arrays.copyOf(commonValues, size));
+        }
+    }
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        log.debug("rebuild()");
+        JdbcTemplate jdbcTemplate = jdbcTemplateProvider.getIfAvailable();
+        if (jdbcTemplate == null) {
+            log.trace("База данных не подключена, индекс наполняется уведомлениями хранилища");
+            return;
+        }
+        Map<String, long[]> ids = new HashMap<>();
+        Map<String, int[]> weights = new HashMap<>();
+        Map<String, Integer> sizes = new HashMap<>();
+        Map<Long, String[]> terms = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, name, description FROM films ORDER BY film_id", (ResultSet rs) -> {
+            long filmId = rs.getLong("film_id");
+            Map<String, Integer> filmWeights = weigh(rs.getString("name"), rs.getString("description"));
+            for (Map.Entry<String, Integer> entry : filmWeights.entrySet()) {
+                String term = entry.getKey();
+                int size = sizes.getOrDefault(term, 0);
+                long[] termIds = ids.computeIfAbsent(term, key -> new long[4]);
+                int[] termWeights = weights.computeIfAbsent(term, key -> new int[4]);
+                if (size == termIds.length) {
+                    termIds = Arrays.copyOf(termIds, size * 2);
+                    termWeights = Arrays.copyOf(termWeights, size * 2);
+                    ids.put(term, termIds);
+                    weights.put(term, termWeights);
+                }
+                termIds[size] = filmId;
+                termWeights[size] = entry.getValue();
+                sizes.put(term, size + 1);
+            }
+            terms.put(filmId, filmWeights.keySet().toArray(new String[0]));
+        });
+        Contents built = Contents.empty();
+        sizes.forEach((term, size) -> built.postings().put(term,
+                new Posting(Arrays.copyOf(ids.get(term), size), Arrays.copyOf(weights.get(term), size))));
+        built.filmTerms().putAll(terms);
+        contents = built;
+        log.trace("Поисковый индекс построен: фильмов {}, слов {}", terms.size(), built.postings().size());
+    }
+
+    public synchronized void clear() {
+        deferredFill.cancel();
+        contents = Contents.empty();
+    }
+
+    @Override
+    public DeferredFill getDeferredFill() {
+        return deferredFill;
+    }
+
+    @Override
+    public void onFilmSaved(Film film) {
+        if (deferredFill.skips()) {
+            return;
+        }
+        index(film);
+    }
+
+    private synchronized void index(Film film) {
+        ConcurrentSkipListMap<String, Posting> postings = contents.postings();
+        Map<Long, String[]> filmTerms = contents.filmTerms();
+        long filmId = film.getId();
+        for (String term : filmTerms.getOrDefault(filmId, new String[0])) {
+            postings.computeIfPresent(term, (key, posting) -> posting.without(filmId));
+        }
+        Map<String, Integer> filmWeights = weigh(film.getName(), film.getDescription());
+        filmWeights.forEach((term, weight) -> postings.merge(term,
+                new Posting(new long[]{filmId}, new int[]{weight}),
+                (posting, added) -> posting.with(filmId, weight)));
+        filmTerms.put(filmId, filmWeights.keySet().toArray(new String[0]));
+    }
+
+    /**
+     * Id фильмов, содержащих все слова запроса, по убыванию релевантности. Вклад слова — его вес в фильме,
+     * умноженный на idf; совпадение только по префиксу последнего слова учитывается с понижающим коэффициентом.
+     */
+    public long[] search(String query, int count) {
+        deferredFill.await();
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.isEmpty()) {
+            return EMPTY;
+        }
+        Contents current = contents;
+        Scores scores = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            Scores tokenScores = match(current, tokens.get(i), i == tokens.size() - 1);
+            scores = scores == null ? tokenScores : scores.intersect(tokenScores);
+            if (scores.ids().length == 0) {
+                return EMPTY;
+            }
+        }
+        TopK top = new TopK(count);
+        long[] ids = scores.ids();
+        double[] values = scores.values();
+        for (int i = 0; i < ids.length; i++) {
+            top.offer(ids[i], values[i]);
+        }
+        return top.ids();
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char symbol = Character.toLowerCase(text.charAt(i));
+            if (symbol == 'ё') {
+                symbol = 'е';
+            }
+            if (Character.isLetterOrDigit(symbol)) {
+                current.append(symbol);
+            } else if (!current.isEmpty()) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (!current.isEmpty()) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    private static Scores match(Contents current, String token, boolean prefix) {
+        Scores scores = Scores.NONE;
+        int films = current.filmTerms().size();
+        Posting exact = current.postings().get(token);
+        if (exact != null) {
+            scores = scores.union(exact, idf(films, exact));
+        }
+        if (prefix) {
+            NavigableMap<String, Posting> expansions = current.postings().subMap(token, false,
+                    token + Character.MAX_VALUE, false);
+            int expanded = 0;
+            for (Posting posting : expansions.values()) {
+                if (expanded++ == MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                scores = scores.union(posting, idf(films, posting) * PREFIX_PENALTY);
+            }
+        }
+        return scores;
+    }
+
+    private static double idf(int films, Posting posting) {
+        return Math.log(1 + (double) films / posting.ids().length);
+    }
+
+    private static Map<String, Integer> weigh(String name, String description) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String term : tokenize(name)) {
+            weights.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(description)) {
+            weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+        return weights;
+    }
+}
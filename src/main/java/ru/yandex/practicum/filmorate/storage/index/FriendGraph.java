@@ -0,0 +1,204 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Индекс смежности друзей: для каждого пользователя хранится отсортированный массив id его друзей.
+ * Массивы не изменяются после публикации — при добавлении и удалении друга создаётся новая копия,
+ * поэтому чтение идёт без блокировок, а возвращаемые массивы изменять нельзя.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendGraph {
+    private static final long[] EMPTY = new long[0];
+    /**
+     * Во сколько раз один список должен быть длиннее другого, чтобы вместо слияния
+     * использовать поиск с галопом по длинному списку.
+     */
+    private static final int GALLOP_RATIO = 32;
+    private final ObjectProvider<JdbcTemplate> jdbcTemplateProvider;
+    private final Map<Long, long[]> friends = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        log.debug("rebuild()");
+        JdbcTemplate jdbcTemplate = jdbcTemplateProvider.getIfAvailable();
+        if (jdbcTemplate == null) {
+            log.trace("База данных не подключена, индекс наполняется уведомлениями хранилища");
+            return;
+        }
+        AdjacencyLoader loader = new AdjacencyLoader();
+        jdbcTemplate.query("SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id", loader);
+        Map<Long, long[]> loaded = loader.finish();
+        friends.clear();
+        friends.putAll(loaded);
+        log.trace("Индекс друзей построен для {} пользователей", loaded.size());
+    }
+
+    public void clear() {
+        friends.clear();
+    }
+
+    /**
+     * Заменяет список друзей пользователя отсортированным массивом, который после вызова изменять нельзя.
+     */
+    public void setFriends(long userId, long[] friendIds) {
+        if (friendIds.length == 0) {
+            friends.remove(userId);
+        } else {
+            friends.put(userId, friendIds);
+        }
+    }
+
+    public void forEach(BiConsumer<Long, long[]> action) {
+        friends.forEach(action);
+    }
+
+    public void addFriend(long userId, long friendId) {
+        friends.compute(userId, (id, ids) -> {
+            long[] current = ids == null ? EMPTY : ids;
+            int position = Arrays.binarySearch(current, friendId);
+            if (position >= 0) {
+                return current;
+            }
+            int insertAt = -position - 1;
+            long[] updated = new long[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = friendId;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+            return updated;
+        });
+    }
+
+    public void deleteFriend(long userId, long friendId) {
+        friends.computeIfPresent(userId, (id, current) -> {
+            int position = Arrays.binarySearch(current, friendId);
+            if (position < 0) {
+                return current;
+            }
+            if (current.length == 1) {
+                return null;
+            }
+            long[] updated = new long[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, position);
+            System.arraycopy(current, position + 1, updated, position, current.length - position - 1);
+            return updated;
+        });
+    }
+
+    public long[] getFriends(long userId) {
+        return friends.getOrDefault(userId, EMPTY);
+    }
+
+    public boolean isFriend(long userId, long friendId) {
+        return Arrays.binarySearch(getFriends(userId), friendId) >= 0;
+    }
+
+    public long[] getCommonFriends(long userId, long otherId) {
+        return intersect(getFriends(userId), getFriends(otherId));
+    }
+
+    static long[] intersect(long[] first, long[] second) {
+        long[] small = first.length <= second.length ? first : second;
+        long[] large = small == first ? second : first;
+        if (small.length == 0) {
+            return EMPTY;
+        }
+        return (long) small.length * GALLOP_RATIO < large.length ? gallop(small, large) : merge(small, large);
+    }
+
+    private static long[] merge(long[] small, long[] large) {
+        long[] result = new long[small.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < small.length && j < large.length) {
+            if (small[i] < large[j]) {
+                i++;
+            } else if (small[i] > large[j]) {
+                j++;
+            } else {
+                result[size++] = small[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static long[] gallop(long[] small, long[] large) {
+        long[] result = new long[small.length];
+        int size = 0;
+        int low = 0;
+        for (long value : small) {
+            int step = 1;
+            int high = low;
+            while (high < large.length && large[high] < value) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            if (low >= large.length) {
+                break;
+            }
+            int position = Arrays.binarySearch(large, low, Math.min(high + 1, large.length), value);
+            if (position >= 0) {
+                result[size++] = value;
+                low = position + 1;
+            } else {
+                low = -position - 1;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Собирает массивы друзей из строк, упорядоченных по user_id и friend_id.
+     */
+    private static final class AdjacencyLoader implements RowCallbackHandler {
+        private final Map<Long, long[]> loaded = new HashMap<>();
+        private long userId = -1L;
+        private long[] buffer = new long[16];
+        private int size;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long rowUserId = rs.getLong("user_id");
+            if (rowUserId != userId) {
+                publish();
+                userId = rowUserId;
+            }
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = rs.getLong("friend_id");
+        }
+
+        Map<Long, long[]> finish() {
+            publish();
+            return loaded;
+        }
+
+        private void publish() {
+            if (size > 0) {
+                loaded.put(userId, Arrays.copyOf(buffer, size));
+                size = 0;
+            }
+        }
+    }
+}
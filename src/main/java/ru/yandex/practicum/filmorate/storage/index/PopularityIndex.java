@@ -0,0 +1,267 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.db.film.FilmListener;
+import ru.yandex.practicum.filmorate.storage.db.like.LikeListener;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Рейтинги популярности по жанрам, рейтингам MPA и годам выхода. Каждый рейтинг — упорядоченное
+ * по убыванию лайков множество, поэтому лайк или смена жанров и MPA фильма обходятся в O(log n)
+ * на каждый затронутый рейтинг, а первые N фильмов читаются без блокировок и без запросов к базе.
+ * Перемещение фильма — это добавление новой позиции и удаление старой, и обход рейтинга между ними
+ * может пропустить фильм или увидеть его дважды. Поэтому запись меняет версию индекса до и после
+ * изменения, а чтение повторяется, если версия за время обхода изменилась; после нескольких неудачных
+ * попыток читатель берёт ту же блокировку, что и запись.
+ * <p>
+ * Рейтинги хранят все фильмы, а не только первые N: фильм занимает по записи в рейтинге каждого своего
+ * жанра, своего MPA и года, около 80 байт на запись вместе с узлом списка с пропусками, плюс положение
+ * и счётчик лайков. Миллион фильмов с двумя жанрами — порядка 4 млн записей и 400 МБ памяти.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PopularityIndex implements LikeListener, FilmListener, DeferredIndex {
+    private static final long[] EMPTY = new long[0];
+    private static final int[] NO_GENRES = new int[0];
+    private static final int OPTIMISTIC_READS = 3;
+    private static final Comparator<Rank> BY_POPULARITY = Comparator.comparingLong(Rank::likes).reversed()
+            .thenComparingLong(Rank::filmId);
+    private final ObjectProvider<JdbcTemplate> jdbcTemplateProvider;
+    private final Map<Integer, NavigableSet<Rank>> byGenre = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<Rank>> byMpa = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<Rank>> byYear = new ConcurrentHashMap<>();
+    private final Map<Long, Placement> placements = new ConcurrentHashMap<>();
+    private final DeferredFill deferredFill = new DeferredFill();
+    /**
+     * Число лайков хранится отдельно от положения фильма в рейтингах: уведомление о лайке может прийти
+     * раньше, чем уведомление о создании фильма.
+     */
+    private final Map<Long, Long> likeCounts = new ConcurrentHashMap<>();
+    /**
+     * Нечётна, пока идёт изменение; меняется только под блокировкой индекса.
+     */
+    private volatile long version;
+
+    private record Rank(long likes, long filmId) {
+    }
+
+    private record Placement(int[] genreIds, Integer mpaId, Integer year) {
+
+        boolean matches(Integer genreId, Integer mpaId, Integer year) {
+            if (genreId != null && Arrays.stream(genreIds).noneMatch(id -> id == genreId)) {
+                return false;
+            }
+            return (mpaId == null || mpaId.equals(this.mpaId)) && (year == null || year.equals(this.year));
+        }
+    }
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        log.debug("rebuild()");
+        JdbcTemplate jdbcTemplate = jdbcTemplateProvider.getIfAvailable();
+        if (jdbcTemplate == null) {
+            log.trace("База данных не подключена, индекс наполняется уведомлениями хранилища");
+            return;
+        }
+        Map<Long, List<Integer>> genres = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genre", (ResultSet rs) -> {
+            genres.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>()).add(rs.getInt("genre_id"));
+        });
+        version++;
+        try {
+            clearBoards();
+            jdbcTemplate.query("SELECT film_id, release_date, mpa_id, like_count FROM films", (ResultSet rs) -> {
+                long filmId = rs.getLong("film_id");
+                Date releaseDate = rs.getDate("release_date");
+                int[] genreIds = genres.getOrDefault(filmId, List.of()).stream()
+                        .mapToInt(Integer::intValue).toArray();
+                Placement placement = new Placement(genreIds, rs.getObject("mpa_id", Integer.class),
+                        releaseDate == null ? null : releaseDate.toLocalDate().getYear());
+                long likes = rs.getLong("like_count");
+                likeCounts.put(filmId, likes);
+                placements.put(filmId, placement);
+                place(placement, new Rank(likes, filmId));
+            });
+        } finally {
+            version++;
+        }
+        log.trace("Рейтинги популярности построены: жанров {}, рейтингов MPA {}, лет {}", byGenre.size(),
+                byMpa.size(), byYear.size());
+    }
+
+    public synchronized void clear() {
+        deferredFill.cancel();
+        version++;
+        clearBoards();
+        version++;
+    }
+
+    private void clearBoards() {
+        byGenre.clear();
+        byMpa.clear();
+        byYear.clear();
+        placements.clear();
+        likeCounts.clear();
+    }
+
+    @Override
+    public DeferredFill getDeferredFill() {
+        return deferredFill;
+    }
+
+    @Override
+    public void onFilmSaved(Film film) {
+        if (deferredFill.skips()) {
+            return;
+        }
+        placeFilm(film);
+    }
+
+    @Override
+    public void onLike(long filmId, long userId) {
+        if (deferredFill.skips()) {
+            return;
+        }
+        changeLikes(filmId, 1);
+    }
+
+    @Override
+    public void onDislike(long filmId, long userId) {
+        if (deferredFill.skips()) {
+            return;
+        }
+        changeLikes(filmId, -1);
+    }
+
+    /**
+     * Id самых популярных фильмов, подходящих под все заданные условия; null означает отсутствие условия.
+     * Обходится самый короткий из выбранных рейтингов, остальные условия проверяются по положению фильма.
+     */
+    public long[] getPopularFilms(Integer genreId, Integer mpaId, Integer year, int count) {
+        deferredFill.await();
+        for (int attempt = 0; attempt < OPTIMISTIC_READS; attempt++) {
+            long before = version;
+            if ((before & 1) == 0) {
+                long[] result = readPopularFilms(genreId, mpaId, year, count);
+                if (version == before) {
+                    return result;
+                }
+            }
+            Thread.onSpinWait();
+        }
+        synchronized (this) {
+            return readPopularFilms(genreId, mpaId, year, count);
+        }
+    }
+
+    private synchronized void placeFilm(Film film) {
+        long filmId = film.getId();
+        long likes = likeCounts.getOrDefault(filmId, 0L);
+        Placement previous = placements.get(filmId);
+        int[] genreIds = film.getGenres() == null ? NO_GENRES
+                : film.getGenres().stream().mapToInt(Genre::getId).toArray();
+        Placement placement = new Placement(genreIds, film.getMpa() == null ? null : film.getMpa().getId(),
+                film.getReleaseDate() == null ? null : film.getReleaseDate().getYear());
+        Rank rank = new Rank(likes, filmId);
+        version++;
+        place(placement, rank);
+        placements.put(filmId, placement);
+        if (previous != null) {
+            displace(previous, rank, placement);
+        }
+        version++;
+    }
+
+    private long[] readPopularFilms(Integer genreId, Integer mpaId, Integer year, int count) {
+        List<NavigableSet<Rank>> boards = new ArrayList<>(3);
+        if (genreId != null) {
+            boards.add(byGenre.get(genreId));
+        }
+        if (mpaId != null) {
+            boards.add(byMpa.get(mpaId));
+        }
+        if (year != null) {
+            boards.add(byYear.get(year));
+        }
+        if (boards.isEmpty() || boards.contains(null)) {
+            return EMPTY;
+        }
+        NavigableSet<Rank> shortest = boards.stream().min(Comparator.comparingInt(NavigableSet::size)).get();
+        long[] result = new long[Math.min(count, shortest.size())];
+        int size = 0;
+        for (Rank rank : shortest) {
+            if (size == result.length) {
+                break;
+            }
+            Placement placement = placements.get(rank.filmId());
+            if (placement != null && placement.matches(genreId, mpaId, year)) {
+                result[size++] = rank.filmId();
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private synchronized void changeLikes(long filmId, int delta) {
+        long likes = likeCounts.getOrDefault(filmId, 0L);
+        likeCounts.put(filmId, likes + delta);
+        Placement placement = placements.get(filmId);
+        if (placement != null) {
+            version++;
+            place(placement, new Rank(likes + delta, filmId));
+            displace(placement, new Rank(likes, filmId), null);
+            version++;
+        }
+    }
+
+    private void place(Placement placement, Rank rank) {
+        for (int genreId : placement.genreIds()) {
+            board(byGenre, genreId).add(rank);
+        }
+        if (placement.mpaId() != null) {
+            board(byMpa, placement.mpaId()).add(rank);
+        }
+        if (placement.year() != null) {
+            board(byYear, placement.year()).add(rank);
+        }
+    }
+
+    /**
+     * Убирает позицию из рейтингов положения, кроме тех, где она остаётся по положению retained.
+     */
+    private void displace(Placement placement, Rank rank, Placement retained) {
+        for (int genreId : placement.genreIds()) {
+            if (retained == null || Arrays.stream(retained.genreIds()).noneMatch(id -> id == genreId)) {
+                board(byGenre, genreId).remove(rank);
+            }
+        }
+        if (placement.mpaId() != null && (retained == null || !placement.mpaId().equals(retained.mpaId()))) {
+            board(byMpa, placement.mpaId()).remove(rank);
+        }
+        if (placement.year() != null && (retained == null || !placement.year().equals(retained.year()))) {
+            board(byYear, placement.year()).remove(rank);
+        }
+    }
+
+    private static NavigableSet<Rank> board(Map<Integer, NavigableSet<Rank>> boards, int key) {
+        return boards.computeIfAbsent(key, id -> new ConcurrentSkipListSet<>(BY_POPULARITY));
+    }
+}
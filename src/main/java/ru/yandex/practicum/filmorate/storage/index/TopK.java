@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.Arrays;
+
+/**
+ * Отбор k лучших id по убыванию оценки, при равенстве — по возрастанию id.
+ * Кандидаты хранятся в отсортированных массивах, вставка стоит O(k), что при небольших k дешевле кучи.
+ */
+final class TopK {
+    private final long[] ids;
+    private final double[] scores;
+    private int size;
+
+    TopK(int k) {
+        this.ids = new long[k];
+        this.scores = new double[k];
+    }
+
+    void offer(long id, double score) {
+        if (ids.length == 0) {
+            return;
+        }
+        if (size == ids.length && !isBetter(score, id, scores[size - 1], ids[size - 1])) {
+            return;
+        }
+        int position = size < ids.length ? size++ : size - 1;
+        while (position > 0 && isBetter(score, id, scores[position - 1], ids[position - 1])) {
+            ids[position] = ids[position - 1];
+            scores[position] = scores[position - 1];
+            position--;
+        }
+        ids[position] = id;
+        scores[position] = score;
+    }
+
+    long[] ids() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    private static boolean isBetter(double score, long id, double otherScore, long otherId) {
+        return score > otherScore || score == otherScore && id < otherId;
+    }
+}
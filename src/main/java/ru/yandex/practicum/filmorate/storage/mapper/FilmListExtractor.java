@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.storage.mapper;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сворачивает строки запроса films JOIN film_genre в фильмы с заполненными MPA и жанрами.
+ */
+public class FilmListExtractor implements ResultSetExtractor<List<Film>> {
+    private final FilmMapper filmMapper = new FilmMapper();
+
+    @Override
+    public List<Film> extractData(ResultSet rs) throws SQLException {
+        Map<Long, Film> films = new LinkedHashMap<>();
+        int rowNum = 0;
+        while (rs.next()) {
+            long filmId = rs.getLong("film_id");
+            Film film = films.get(filmId);
+            if (film == null) {
+                film = filmMapper.mapRow(rs, rowNum);
+                film.getMpa().setName(rs.getString("mpa_rating"));
+                films.put(filmId, film);
+            }
+            int genreId = rs.getInt("genre_id");
+            if (!rs.wasNull()) {
+                film.getGenres().add(new Genre(genreId, rs.getString("genre_type")));
+            }
+            rowNum++;
+        }
+        return new ArrayList<>(films.values());
+    }
+}
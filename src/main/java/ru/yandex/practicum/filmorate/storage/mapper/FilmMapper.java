@@ -21,6 +21,7 @@ public class FilmMapper implements RowMapper<Film> {
         Mpa mpa = new Mpa();
         mpa.setId(rs.getInt("mpa_id"));
         film.setMpa(mpa);
+        film.setLikeCount(rs.getLong("like_count"));
         return film;
     }
 }
@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.storage.mapper;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * Потоково сворачивает строки films LEFT JOIN film_genre, упорядоченные по film_id, и отдаёт каждый фильм
+ * сразу после его последней строки. В памяти держится только текущий фильм.
+ */
+public class FilmRowCallbackHandler implements RowCallbackHandler {
+    private final FilmMapper filmMapper = new FilmMapper();
+    private final Consumer<Film> action;
+    private Film current;
+    private int rowNum;
+
+    public FilmRowCallbackHandler(Consumer<Film> action) {
+        this.action = action;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        long filmId = rs.getLong("film_id");
+        if (current == null || current.getId() != filmId) {
+            flush();
+            current = filmMapper.mapRow(rs, rowNum++);
+        }
+        int genreId = rs.getInt("genre_id");
+        if (!rs.wasNull()) {
+            current.getGenres().add(new Genre(genreId));
+        }
+    }
+
+    public void flush() {
+        if (current != null) {
+            action.accept(current);
+            current = null;
+        }
+    }
+}
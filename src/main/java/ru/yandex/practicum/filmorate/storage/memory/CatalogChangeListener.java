@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Получает каждое изменение хранилищ в памяти сразу после его применения и ещё под блокировкой хранилища,
+ * поэтому изменение, видимое читателям, уже передано слушателю. Передаются хранимые объекты, а не копии:
+ * слушатель не должен их изменять и сохранять ссылки на них.
+ */
+public interface CatalogChangeListener {
+
+    void onUserSaved(User user);
+
+    void onFilmChanged(Film film, long version);
+
+    void onLike(long filmId, long userId);
+
+    void onDislike(long filmId, long userId);
+
+    void onFriendAdded(long userId, long friendId);
+
+    void onFriendDeleted(long userId, long friendId);
+}
@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Двоичное представление пользователей и фильмов для снимка и журнала каталога. Строки записываются
+ * длиной в байтах (-1 для null) и байтами UTF-8, даты — номером дня эпохи. У фильма хранятся только id
+ * рейтинга и жанров: названия берутся из справочников при восстановлении, число лайков пересчитывается.
+ */
+final class CatalogCodec {
+
+    record VersionedFilm(Film film, long version) {
+    }
+
+    private CatalogCodec() {
+    }
+
+    static ByteBuffer encodeUser(User user) {
+        byte[] email = bytes(user.getEmail());
+        byte[] login = bytes(user.getLogin());
+        byte[] name = bytes(user.getName());
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 2 + size(email) + size(login) + size(name));
+        buffer.putLong(user.getId());
+        putString(buffer, email);
+        putString(buffer, login);
+        putString(buffer, name);
+        buffer.putLong(user.getBirthday().toEpochDay());
+        return buffer.flip();
+    }
+
+    static User decodeUser(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        String email = getString(buffer);
+        String login = getString(buffer);
+        String name = getString(buffer);
+        return new User(id, email, login, name, LocalDate.ofEpochDay(buffer.getLong()));
+    }
+
+    static ByteBuffer encodeFilm(Film film, long version) {
+        byte[] name = bytes(film.getName());
+        byte[] description = bytes(film.getDescription());
+        Set<Genre> genres = film.getGenres();
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 4 + size(name) + size(description)
+                + Integer.BYTES * (2 + genres.size()));
+        buffer.putLong(film.getId());
+        buffer.putLong(version);
+        putString(buffer, name);
+        putString(buffer, description);
+        buffer.putLong(film.getReleaseDate().toEpochDay());
+        buffer.putLong(film.getDuration());
+        buffer.putInt(film.getMpa().getId());
+        buffer.putInt(genres.size());
+        for (Genre genre : genres) {
+            buffer.putInt(genre.getId());
+        }
+        return buffer.flip();
+    }
+
+    static VersionedFilm decodeFilm(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        long version = buffer.getLong();
+        String name = getString(buffer);
+        String description = getString(buffer);
+        LocalDate releaseDate = LocalDate.ofEpochDay(buffer.getLong());
+        long duration = buffer.getLong();
+        Mpa mpa = new Mpa(buffer.getInt());
+        int genreCount = buffer.getInt();
+        Set<Genre> genres = new LinkedHashSet<>();
+        for (int i = 0; i < genreCount; i++) {
+            genres.add(new Genre(buffer.getInt()));
+        }
+        return new VersionedFilm(new Film(id, name, description, releaseDate, duration, mpa, genres, 0L), version);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int size(byte[] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
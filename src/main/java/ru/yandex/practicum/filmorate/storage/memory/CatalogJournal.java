@@ -0,0 +1,221 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.InternalServiceException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал изменений каталога в памяти, разбитый на сегменты catalog-N.journal. Запись состоит из длины,
+ * контрольной суммы CRC32 и данных: тип изменения и его содержимое. Хранилища передают изменения под своей
+ * блокировкой, поэтому порядок записей в журнале совпадает с порядком применения изменений.
+ * Сегменты удаляются после того, как их изменения вошли в {@link CatalogSnapshot}.
+ */
+@Slf4j
+@Component
+@Profile("memory")
+@ConditionalOnProperty(name = "filmorate.memory.snapshot.enabled", havingValue = "true")
+public class CatalogJournal implements CatalogChangeListener {
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final byte USER_SAVED = 1;
+    private static final byte FILM_CHANGED = 2;
+    private static final byte LIKE = 3;
+    private static final byte DISLIKE = 4;
+    private static final byte FRIEND_ADDED = 5;
+    private static final byte FRIEND_DELETED = 6;
+    private static final String PREFIX = "catalog-";
+    private static final String SUFFIX = ".journal";
+    private final Path directory;
+    private final boolean fsync;
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    private final ByteBuffer pair = ByteBuffer.allocate(1 + 2 * Long.BYTES);
+    private FileChannel channel;
+    private long segment;
+
+    public CatalogJournal(@Value("${filmorate.memory.snapshot.dir:./db/memory-snapshot}") String directory,
+                          @Value("${filmorate.memory.snapshot.journal-fsync:false}") boolean fsync)
+            throws IOException {
+        this.directory = Path.of(directory);
+        this.fsync = fsync;
+        Files.createDirectories(this.directory);
+        long last = segments().stream()
+                .mapToLong(CatalogJournal::segmentNumber)
+                .max()
+                .orElse(0);
+        open(last + 1);
+    }
+
+    @Override
+    public void onUserSaved(User user) {
+        ByteBuffer data = CatalogCodec.encodeUser(user);
+        append(ByteBuffer.allocate(1 + data.remaining()).put(USER_SAVED).put(data).flip());
+    }
+
+    @Override
+    public void onFilmChanged(Film film, long version) {
+        ByteBuffer data = CatalogCodec.encodeFilm(film, version);
+        append(ByteBuffer.allocate(1 + data.remaining()).put(FILM_CHANGED).put(data).flip());
+    }
+
+    @Override
+    public void onLike(long filmId, long userId) {
+        appendPair(LIKE, filmId, userId);
+    }
+
+    @Override
+    public void onDislike(long filmId, long userId) {
+        appendPair(DISLIKE, filmId, userId);
+    }
+
+    @Override
+    public void onFriendAdded(long userId, long friendId) {
+        appendPair(FRIEND_ADDED, userId, friendId);
+    }
+
+    @Override
+    public void onFriendDeleted(long userId, long friendId) {
+        appendPair(FRIEND_DELETED, userId, friendId);
+    }
+
+    /**
+     * Воспроизводит изменения сегментов начиная с fromSegment, записанных до текущего запуска.
+     * Сегмент читается до первой неполной записи или записи с неверной контрольной суммой —
+     * так выглядит обрыв при аварийном завершении.
+     *
+     * @return число воспроизведённых изменений
+     */
+    long replay(long fromSegment, CatalogChangeListener listener) throws IOException {
+        long replayed = 0;
+        for (Path path : segments()) {
+            long number = segmentNumber(path);
+            if (number < fromSegment || number >= segment) {
+                continue;
+            }
+            try (MappedFileReader reader = new MappedFileReader(path)) {
+                while (reader.remaining() > 0) {
+                    int length = reader.getInt();
+                    int checksum = reader.getInt();
+                    ByteBuffer record = reader.slice(length);
+                    CRC32 recordCrc = new CRC32();
+                    recordCrc.update(record.duplicate());
+                    if (length == 0 || (int) recordCrc.getValue() != checksum) {
+                        log.warn("Сегмент {} повреждён, оставшиеся записи пропущены", path);
+                        break;
+                    }
+                    apply(record, listener);
+                    replayed++;
+                }
+            } catch (EOFException exception) {
+                log.warn("Последняя запись сегмента {} не дописана и пропущена", path);
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Закрывает текущий сегмент и открывает следующий.
+     *
+     * @return номер открытого сегмента — первого, не вошедшего в снимок, который начнёт сниматься после вызова
+     */
+    synchronized long rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        open(segment + 1);
+        return segment;
+    }
+
+    synchronized boolean isSegmentEmpty() throws IOException {
+        return channel.size() == 0;
+    }
+
+    void deleteBefore(long number) throws IOException {
+        for (Path path : segments()) {
+            if (segmentNumber(path) < number) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private synchronized void appendPair(byte type, long first, long second) {
+        pair.clear();
+        append(pair.put(type).putLong(first).putLong(second).flip());
+    }
+
+    private synchronized void append(ByteBuffer record) {
+        crc.reset();
+        crc.update(record.duplicate());
+        header.clear();
+        header.putInt(record.remaining()).putInt((int) crc.getValue()).flip();
+        try {
+            ByteBuffer[] buffers = {header, record};
+            while (record.hasRemaining()) {
+                channel.write(buffers);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException exception) {
+            throw new InternalServiceException("Не удалось записать изменение в журнал каталога: "
+                    + exception.getMessage());
+        }
+    }
+
+    private static void apply(ByteBuffer record, CatalogChangeListener listener) {
+        byte type = record.get();
+        switch (type) {
+            case USER_SAVED -> listener.onUserSaved(CatalogCodec.decodeUser(record));
+            case FILM_CHANGED -> {
+                CatalogCodec.VersionedFilm film = CatalogCodec.decodeFilm(record);
+                listener.onFilmChanged(film.film(), film.version());
+            }
+            case LIKE -> listener.onLike(record.getLong(), record.getLong());
+            case DISLIKE -> listener.onDislike(record.getLong(), record.getLong());
+            case FRIEND_ADDED -> listener.onFriendAdded(record.getLong(), record.getLong());
+            case FRIEND_DELETED -> listener.onFriendDeleted(record.getLong(), record.getLong());
+            default -> throw new IllegalStateException("Неизвестный тип записи журнала каталога: " + type);
+        }
+    }
+
+    private void open(long number) throws IOException {
+        channel = FileChannel.open(directory.resolve(PREFIX + number + SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segment = number;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted((first, second) -> Long.compare(segmentNumber(first), segmentNumber(second)))
+                    .toList();
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Снимок каталога в памяти. Формат файла: заголовок (сигнатура, версия формата, номер первого сегмента
+ * журнала, который нужно воспроизвести поверх снимка), затем секции пользователей и фильмов — записи
+ * с длиной, завершённые длиной -1, и секции лайков и друзей — id пользователя, число id и сами id,
+ * завершённые id 0. Снимок сначала пишется во временный файл и заменяет прежний атомарным переименованием.
+ */
+@Slf4j
+final class CatalogSnapshot {
+    private static final int MAGIC = 0x46534E50;
+    private static final int FORMAT_VERSION = 1;
+    private static final int END_OF_RECORDS = -1;
+    private static final long END_OF_LISTS = 0L;
+
+    interface Loader {
+        void user(User user);
+
+        void film(Film film, long version);
+
+        void likes(long userId, long[] filmIds);
+
+        void friends(long userId, long[] friendIds);
+    }
+
+    private CatalogSnapshot() {
+    }
+
+    static void write(Path path, long firstSegment, InMemoryUserStorage userStorage, InMemoryFilmStorage filmStorage,
+                      InMemoryLikeDao likeDao, FriendGraph friendGraph) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (MappedFileWriter writer = new MappedFileWriter(temporary)) {
+            writer.putInt(MAGIC);
+            writer.putInt(FORMAT_VERSION);
+            writer.putLong(firstSegment);
+            userStorage.forEachUser(user -> putRecord(writer, CatalogCodec.encodeUser(user)));
+            writer.putInt(END_OF_RECORDS);
+            filmStorage.forEachVersionedFilm((film, version) ->
+                    putRecord(writer, CatalogCodec.encodeFilm(film, version)));
+            writer.putInt(END_OF_RECORDS);
+            likeDao.forEachUserLikes((userId, filmIds) -> putList(writer, userId, filmIds));
+            writer.putLong(END_OF_LISTS);
+            friendGraph.forEach((userId, friendIds) -> putList(writer, userId, friendIds));
+            writer.putLong(END_OF_LISTS);
+            writer.finish();
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Загружает снимок в loader.
+     *
+     * @return номер первого сегмента журнала, не вошедшего в снимок, или 0, если снимка нет
+     */
+    static long read(Path path, Loader loader) throws IOException {
+        if (Files.notExists(path)) {
+            log.trace("Снимок каталога {} отсутствует", path);
+            return 0L;
+        }
+        try (MappedFileReader reader = new MappedFileReader(path)) {
+            if (reader.getInt() != MAGIC || reader.getInt() != FORMAT_VERSION) {
+                throw new IOException("Файл " + path + " не является снимком каталога поддерживаемой версии");
+            }
+            long firstSegment = reader.getLong();
+            for (int length = reader.getInt(); length != END_OF_RECORDS; length = reader.getInt()) {
+                loader.user(CatalogCodec.decodeUser(reader.slice(length)));
+            }
+            for (int length = reader.getInt(); length != END_OF_RECORDS; length = reader.getInt()) {
+                CatalogCodec.VersionedFilm film = CatalogCodec.decodeFilm(reader.slice(length));
+                loader.film(film.film(), film.version());
+            }
+            for (long userId = reader.getLong(); userId != END_OF_LISTS; userId = reader.getLong()) {
+                loader.likes(userId, reader.getLongs(reader.getInt()));
+            }
+            for (long userId = reader.getLong(); userId != END_OF_LISTS; userId = reader.getLong()) {
+                loader.friends(userId, reader.getLongs(reader.getInt()));
+            }
+            return firstSegment;
+        }
+    }
+
+    private static void putRecord(MappedFileWriter writer, ByteBuffer record) {
+        writer.putInt(record.remaining());
+        writer.put(record);
+    }
+
+    private static void putList(MappedFileWriter writer, long userId, long[] ids) {
+        writer.putLong(userId);
+        writer.putInt(ids.length);
+        writer.putLongs(ids);
+    }
+}
@@ -0,0 +1,200 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import ru.yandex.practicum.filmorate.exception.InternalServiceException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.db.film.FilmListener;
+import ru.yandex.practicum.filmorate.storage.db.like.LikeListener;
+import ru.yandex.practicum.filmorate.storage.index.DeferredIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сохранение каталога в памяти между запусками. При старте загружает последний {@link CatalogSnapshot}
+ * и воспроизводит поверх него {@link CatalogJournal}, затем по таймеру и при остановке снимает новый снимок
+ * и удаляет вошедшие в него сегменты журнала. Снимок снимается без остановки записи: изменения, сделанные
+ * во время снятия, попадают и в снимок, и в журнал, а их повторное применение при восстановлении ничего
+ * не меняет.
+ * <p>
+ * Состояние индексов в снимок не входит, и при старте они не заполняются: старт — это чтение снимка
+ * в хранилища, хвост журнала и пересчёт счётчиков лайков. Каждый {@link DeferredIndex} заполняется
+ * из хранилищ при первом чтении, а до того пропускает уведомления, см. {@code DeferredFill}.
+ */
+@Slf4j
+@Component
+@Profile("memory")
+@ConditionalOnProperty(name = "filmorate.memory.snapshot.enabled", havingValue = "true")
+public class CatalogSnapshotManager {
+    private static final String SNAPSHOT_FILE = "catalog.snapshot";
+    private final InMemoryUserStorage userStorage;
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryLikeDao likeDao;
+    private final FriendGraph friendGraph;
+    private final CatalogJournal journal;
+    private final List<DeferredIndex> indexes;
+    private final Path snapshotPath;
+    private final long intervalMs;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CatalogSnapshotManager(InMemoryUserStorage userStorage, InMemoryFilmStorage filmStorage,
+                                  InMemoryLikeDao likeDao, FriendGraph friendGraph, CatalogJournal journal,
+                                  List<DeferredIndex> indexes,
+                                  @Value("${filmorate.memory.snapshot.dir:./db/memory-snapshot}") String directory,
+                                  @Value("${filmorate.memory.snapshot.interval-ms:300000}") long intervalMs) {
+        this.userStorage = userStorage;
+        this.filmStorage = filmStorage;
+        this.likeDao = likeDao;
+        this.friendGraph = friendGraph;
+        this.journal = journal;
+        this.indexes = indexes;
+        this.snapshotPath = Path.of(directory).resolve(SNAPSHOT_FILE);
+        this.intervalMs = intervalMs;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        long started = System.nanoTime();
+        Restorer restorer = new Restorer();
+        long firstSegment = CatalogSnapshot.read(snapshotPath, restorer);
+        long replayed = journal.replay(firstSegment, restorer);
+        likeDao.recountLikes();
+        indexes.forEach(this::deferFill);
+        log.info("Каталог восстановлен за {} мс, из журнала применено изменений: {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), replayed);
+        if (replayed > 0) {
+            snapshot();
+        }
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(intervalMs, TimeUnit.MILLISECONDS);
+        snapshot();
+    }
+
+    /**
+     * Снимает снимок каталога. Журнал переключается на новый сегмент до начала обхода хранилищ,
+     * поэтому каждое изменение, не попавшее в снимок, есть в сегментах, которые остаются на диске.
+     */
+    public synchronized void snapshot() {
+        log.debug("snapshot()");
+        long started = System.nanoTime();
+        try {
+            long firstSegment = journal.rotate();
+            CatalogSnapshot.write(snapshotPath, firstSegment, userStorage, filmStorage, likeDao, friendGraph);
+            journal.deleteBefore(firstSegment);
+        } catch (IOException exception) {
+            throw new InternalServiceException("Не удалось сохранить снимок каталога: " + exception.getMessage());
+        }
+        log.trace("Снимок каталога сохранён за {} мс", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Откладывает заполнение индекса до первого чтения. Индекс заполняется под блокировкой чтения лайков:
+     * хранилище лайков уведомляет слушателей под блокировкой записи, поэтому ни один лайк не попадёт в индекс
+     * дважды.
+     */
+    private void deferFill(DeferredIndex index) {
+        index.getDeferredFill().defer(likeDao::readLocked, () -> {
+            long started = System.nanoTime();
+            if (index instanceof LikeListener listener) {
+                likeDao.forEachUserLikes((userId, filmIds) -> {
+                    for (long filmId : filmIds) {
+                        listener.onLike(filmId, userId);
+                    }
+                });
+            }
+            if (index instanceof FilmListener listener) {
+                filmStorage.forEachFilm(listener::onFilmSaved);
+            }
+            log.info("Индекс {} заполнен из каталога за {} мс", ClassUtils.getUserClass(index).getSimpleName(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        });
+    }
+
+    private void snapshotQuietly() {
+        try {
+            if (!journal.isSegmentEmpty()) {
+                snapshot();
+            }
+        } catch (IOException | InternalServiceException exception) {
+            log.trace("Снимок каталога будет повторён: {}", exception.getMessage());
+        }
+    }
+
+    /**
+     * Применяет снимок и журнал к хранилищам без уведомления слушателей.
+     */
+    private final class Restorer implements CatalogSnapshot.Loader, CatalogChangeListener {
+
+        @Override
+        public void user(User user) {
+            userStorage.restoreUser(user);
+        }
+
+        @Override
+        public void film(Film film, long version) {
+            filmStorage.restoreFilm(film, version);
+        }
+
+        @Override
+        public void likes(long userId, long[] filmIds) {
+            likeDao.restoreLikes(userId, filmIds);
+        }
+
+        @Override
+        public void friends(long userId, long[] friendIds) {
+            friendGraph.setFriends(userId, friendIds);
+        }
+
+        @Override
+        public void onUserSaved(User user) {
+            userStorage.restoreUser(user);
+        }
+
+        @Override
+        public void onFilmChanged(Film film, long version) {
+            filmStorage.restoreFilm(film, version);
+        }
+
+        @Override
+        public void onLike(long filmId, long userId) {
+            likeDao.restoreLike(filmId, userId, true);
+        }
+
+        @Override
+        public void onDislike(long filmId, long userId) {
+            likeDao.restoreLike(filmId, userId, false);
+        }
+
+        @Override
+        public void onFriendAdded(long userId, long friendId) {
+            friendGraph.addFriend(userId, friendId);
+        }
+
+        @Override
+        public void onFriendDeleted(long userId, long friendId) {
+            friendGraph.deleteFriend(userId, friendId);
+        }
+    }
+}
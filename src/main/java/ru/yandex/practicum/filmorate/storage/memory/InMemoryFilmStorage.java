@@ -0,0 +1,559 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.db.TransactionHooks;
+import ru.yandex.practicum.filmorate.storage.db.film.FilmListener;
+import ru.yandex.practicum.filmorate.storage.db.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.db.genre.GenreDao;
+import ru.yandex.practicum.filmorate.storage.db.mpa.MpaDao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+import static java.lang.String.format;
+
+/**
+ * Хранилище фильмов в памяти. Фильмы лежат в таблице с ключами long под блокировкой чтения-записи,
+ * id выдаются атомарным счётчиком. Наружу отдаются только копии, названия жанров и MPA подставляются
+ * из справочников при записи. Поведение повторяет {@code FilmDbStorage}: те же исключения при промахах,
+ * та же версия фильма для ETag и те же уведомления слушателей после фиксации транзакции.
+ */
+@Slf4j
+@Component("InMemoryFilmStorage")
+@Profile("memory")
+@RequiredArgsConstructor
+public class InMemoryFilmStorage implements FilmStorage {
+    private static final Comparator<StoredFilm> BY_POPULARITY = Comparator
+            .comparingLong((StoredFilm stored) -> stored.film.getLikeCount()).reversed()
+            .thenComparingLong(stored -> stored.film.getId());
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+    private final GenreDao genreDao;
+    private final MpaDao mpaDao;
+    private final List<FilmListener> listeners;
+    private final List<CatalogChangeListener> changeListeners;
+    /**
+     * Счётчик не сбрасывается при очистке хранилища, как и identity-столбец в базе данных: индексы
+     * в памяти не должны принять новый фильм за удалённый.
+     */
+    private final AtomicLong lastId = new AtomicLong();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongObjectHashMap<StoredFilm> filmsById = new LongObjectHashMap<>();
+    private final SortedIds order = new SortedIds();
+    /**
+     * Фильмы по убыванию числа лайков, как индекс films_like_count_idx в базе данных. Фильм вынимается
+     * из множества перед изменением счётчика и возвращается после него.
+     */
+    private final TreeSet<StoredFilm> byPopularity = new TreeSet<>(BY_POPULARITY);
+
+    /**
+     * Хранимый фильм и его версия; изменяются только под блокировкой записи.
+     */
+    private static final class StoredFilm {
+        private Film film;
+        private long version;
+
+        StoredFilm(Film film) {
+            this.film = film;
+        }
+    }
+
+    @Override
+    public Film createFilm(Film film) {
+        log.debug("createFilm({})", film);
+        long filmId = lastId.incrementAndGet();
+        Film stored = resolve(film, filmId, Set.of());
+        lock.writeLock().lock();
+        try {
+            StoredFilm created = new StoredFilm(stored);
+            filmsById.put(filmId, created);
+            order.add(filmId);
+            byPopularity.add(created);
+            journal(created);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        film.setId(filmId);
+        notifySaved(List.of(film));
+        log.trace("Фильм {} добавлен в хранилище", film);
+        return film;
+    }
+
+    @Override
+    public List<Film> createFilms(List<Film> films) {
+        log.debug("createFilms({} шт.)", films.size());
+        long firstId = lastId.addAndGet(films.size()) - films.size() + 1;
+        List<Film> stored = new ArrayList<>(films.size());
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            stored.add(resolve(film, firstId + i, film.getGenres() == null ? Set.of() : film.getGenres()));
+        }
+        lock.writeLock().lock();
+        try {
+            for (Film film : stored) {
+                StoredFilm created = new StoredFilm(film);
+                filmsById.put(film.getId(), created);
+                order.add(film.getId());
+                byPopularity.add(created);
+                journal(created);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(firstId + i);
+        }
+        notifySaved(films);
+        log.trace("В хранилище добавлено {} фильмов", films.size());
+        return films;
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        log.debug("updateFilm({}).", film);
+        Film updated = resolve(film, film.getId(), Set.of());
+        lock.writeLock().lock();
+        try {
+            StoredFilm current = find(film.getId());
+            if (current != null) {
+                updated.setGenres(current.film.getGenres());
+                updated.setLikeCount(current.film.getLikeCount());
+                current.film = updated;
+                current.version++;
+                journal(current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifySaved(List.of(film));
+        log.trace("Фильм {} был обновлен в хранилище", film);
+        return film;
+    }
+
+    @Override
+    public Film getFilmById(Long id) {
+        log.debug("getFilmById({})", id);
+        lock.readLock().lock();
+        try {
+            StoredFilm stored = find(id);
+            if (stored == null) {
+                throw new EmptyResultDataAccessException(1);
+            }
+            Film thisFilm = copyOf(stored.film);
+            log.trace("Фильм: {} ", thisFilm);
+            return thisFilm;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String getFilmETag(Long id) {
+        log.debug("getFilmETag({})", id);
+        lock.readLock().lock();
+        try {
+            StoredFilm stored = find(id);
+            if (stored == null) {
+                throw new EmptyResultDataAccessException(1);
+            }
+            return id + "-" + stored.version + "-" + stored.film.getLikeCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Фильмы в порядке переданных id; отсутствующие в хранилище id пропускаются.
+     */
+    @Override
+    public List<Film> getFilmsByIds(long[] ids) {
+        log.debug("getFilmsByIds({} шт.)", ids.length);
+        List<Film> ordered;
+        lock.readLock().lock();
+        try {
+            ordered = copiesOf(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+        log.trace("Фильмы по списку id: {}", ordered);
+        return ordered;
+    }
+
+    @Override
+    public List<Film> getFilms() {
+        log.debug("getFilms()");
+        List<Film> films;
+        lock.readLock().lock();
+        try {
+            films = copiesOf(order.toArray());
+        } finally {
+            lock.readLock().unlock();
+        }
+        log.trace("Фильмы в хранилище: {}", films);
+        return films;
+    }
+
+    @Override
+    public List<Film> getFilmsAfter(Long afterId, Integer limit) {
+        log.debug("getFilmsAfter({}, {})", afterId, limit);
+        List<Film> films = page(afterId, limit);
+        log.trace("Страница фильмов после id {}: {}", afterId, films);
+        return films;
+    }
+
+    /**
+     * Фильмы копируются порциями под блокировкой чтения, а действие выполняется без неё,
+     * чтобы медленный получатель не задерживал запись.
+     */
+    @Override
+    public void forEachFilm(Consumer<Film> action) {
+        log.debug("forEachFilm()");
+        long afterId = 0L;
+        List<Film> chunk = page(afterId, EXPORT_CHUNK_SIZE);
+        while (!chunk.isEmpty()) {
+            chunk.forEach(action);
+            afterId = chunk.get(chunk.size() - 1).getId();
+            chunk = page(afterId, EXPORT_CHUNK_SIZE);
+        }
+    }
+
+    @Override
+    public List<Film> getPopularMovies(Integer count) {
+        log.debug("getPopularMovies({})", count);
+        List<Film> popularMovies = new ArrayList<>();
+        if (count <= 0) {
+            return popularMovies;
+        }
+        lock.readLock().lock();
+        try {
+            for (StoredFilm stored : byPopularity) {
+                if (popularMovies.size() == count) {
+                    break;
+                }
+                popularMovies.add(copyOf(stored.film));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        log.trace("Самые популярные фильмы: {}", popularMovies);
+        return popularMovies;
+    }
+
+    @Override
+    public Boolean isContains(Long id) {
+        log.debug("isContains({})", id);
+        boolean isContains;
+        lock.readLock().lock();
+        try {
+            isContains = find(id) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+        log.trace("Фильм с идентификатором {} найден: {}", id, isContains);
+        return isContains;
+    }
+
+    @Override
+    public void addGenres(Long filmId, Set<Genre> genres) {
+        log.debug("addGenres({}, {})", filmId, genres);
+        if (genres.isEmpty()) {
+            return;
+        }
+        Set<Genre> added = resolveGenres(genres);
+        lock.writeLock().lock();
+        try {
+            StoredFilm stored = require(filmId);
+            List<Genre> merged = new ArrayList<>(stored.film.getGenres());
+            merged.addAll(added);
+            stored.film.setGenres(sortedById(merged));
+            journal(stored);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.trace("Жанры были добавлены к фильму с идентификатором {}", filmId);
+    }
+
+    @Override
+    public void updateGenres(Long filmId, Set<Genre> oldGenres, Set<Genre> newGenres) {
+        log.debug("updateGenres({}, {}, {})", filmId, oldGenres, newGenres);
+        Set<Integer> oldIds = toGenreIds(oldGenres);
+        Set<Integer> newIds = toGenreIds(newGenres);
+        Set<Integer> removed = new HashSet<>(oldIds);
+        removed.removeAll(newIds);
+        List<Genre> added = new ArrayList<>();
+        for (Genre genre : resolveGenres(newGenres)) {
+            if (!oldIds.contains(genre.getId())) {
+                added.add(genre);
+            }
+        }
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            StoredFilm stored = require(filmId);
+            List<Genre> genres = new ArrayList<>();
+            for (Genre genre : stored.film.getGenres()) {
+                if (!removed.contains(genre.getId())) {
+                    genres.add(genre);
+                }
+            }
+            genres.addAll(added);
+            stored.film.setGenres(sortedById(genres));
+            stored.version++;
+            journal(stored);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.trace("У фильма {} удалено жанров: {}, добавлено: {}", filmId, removed.size(), added.size());
+    }
+
+    @Override
+    public Set<Genre> getGenres(Long filmId) {
+        log.debug("getGenres({})", filmId);
+        Set<Genre> genres = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            StoredFilm stored = find(filmId);
+            if (stored != null) {
+                genres = copyOf(stored.film).getGenres();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        log.trace("Жанры фильма с идентификатором {} : {}", filmId, genres);
+        return genres;
+    }
+
+    @Override
+    public void deleteGenres(Long filmId) {
+        log.debug("deleteGenres({})", filmId);
+        lock.writeLock().lock();
+        try {
+            StoredFilm stored = find(filmId);
+            if (stored != null) {
+                stored.film.setGenres(new LinkedHashSet<>());
+                journal(stored);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.trace("Все жанры фильма с идентификатором {} были удалены", filmId);
+    }
+
+    /**
+     * Изменяет счётчик лайков фильма; вызывается хранилищем лайков вместе с записью самого лайка.
+     */
+    public void changeLikeCount(long filmId, long delta) {
+        lock.writeLock().lock();
+        try {
+            StoredFilm stored = find(filmId);
+            if (stored != null) {
+                byPopularity.remove(stored);
+                stored.film.setLikeCount(stored.film.getLikeCount() + delta);
+                byPopularity.add(stored);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Устанавливает счётчики лайков всех фильмов после восстановления каталога; фильмы без лайков получают 0.
+     */
+    public void restoreLikeCounts(Map<Long, Long> counts) {
+        lock.writeLock().lock();
+        try {
+            byPopularity.clear();
+            filmsById.forEach((filmId, stored) -> {
+                stored.film.setLikeCount(counts.getOrDefault(filmId, 0L));
+                byPopularity.add(stored);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Записывает фильм из снимка или журнала изменений с его версией; число лайков не меняется,
+     * его пересчитывает хранилище лайков. Слушатели не уведомляются.
+     */
+    public void restoreFilm(Film film, long version) {
+        Film restored = resolve(film, film.getId(), film.getGenres());
+        lock.writeLock().lock();
+        try {
+            StoredFilm current = filmsById.get(film.getId());
+            if (current != null) {
+                restored.setLikeCount(current.film.getLikeCount());
+                byPopularity.remove(current);
+            }
+            StoredFilm stored = new StoredFilm(restored);
+            stored.version = version;
+            filmsById.put(film.getId(), stored);
+            order.add(film.getId());
+            byPopularity.add(stored);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastId.accumulateAndGet(film.getId(), Math::max);
+    }
+
+    /**
+     * Обходит копии фильмов вместе с их версиями для снимка каталога; действие выполняется без блокировки.
+     */
+    public void forEachVersionedFilm(ObjLongConsumer<Film> action) {
+        long afterId = 0L;
+        while (true) {
+            long[] ids;
+            List<Film> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+            long[] versions = new long[EXPORT_CHUNK_SIZE];
+            lock.readLock().lock();
+            try {
+                ids = order.after(afterId, EXPORT_CHUNK_SIZE);
+                for (long id : ids) {
+                    StoredFilm stored = filmsById.get(id);
+                    versions[chunk.size()] = stored.version;
+                    chunk.add(copyOf(stored.film));
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (ids.length == 0) {
+                return;
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                action.accept(chunk.get(i), versions[i]);
+            }
+            afterId = ids[ids.length - 1];
+        }
+    }
+
+    public void clear() {
+        log.debug("clear()");
+        lock.writeLock().lock();
+        try {
+            filmsById.clear();
+            order.clear();
+            byPopularity.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Передаёт изменённый фильм слушателям. Вызывается под блокировкой записи.
+     */
+    private void journal(StoredFilm stored) {
+        for (CatalogChangeListener listener : changeListeners) {
+            listener.onFilmChanged(stored.film, stored.version);
+        }
+    }
+
+    private StoredFilm find(Long id) {
+        return id == null ? null : filmsById.get(id);
+    }
+
+    private StoredFilm require(Long filmId) {
+        StoredFilm stored = find(filmId);
+        if (stored == null) {
+            throw new DataIntegrityViolationException(format("Фильм с id %s отсутствует в хранилище", filmId));
+        }
+        return stored;
+    }
+
+    private List<Film> page(long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            return copiesOf(order.after(afterId, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Вызывается под блокировкой чтения.
+     */
+    private List<Film> copiesOf(long[] ids) {
+        List<Film> copies = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            StoredFilm stored = filmsById.get(id);
+            if (stored != null) {
+                copies.add(copyOf(stored.film));
+            }
+        }
+        return copies;
+    }
+
+    private Film resolve(Film film, Long filmId, Collection<Genre> genres) {
+        return new Film(filmId, film.getName(), film.getDescription(), film.getReleaseDate(), film.getDuration(),
+                mpaDao.getMpaById(film.getMpa().getId()), resolveGenres(genres), 0L);
+    }
+
+    private Set<Genre> resolveGenres(Collection<Genre> genres) {
+        List<Genre> resolved = new ArrayList<>(genres.size());
+        for (Genre genre : genres) {
+            resolved.add(genreDao.getGenreById(genre.getId()));
+        }
+        return sortedById(resolved);
+    }
+
+    private static Set<Genre> sortedById(Collection<Genre> genres) {
+        TreeMap<Integer, Genre> byId = new TreeMap<>();
+        for (Genre genre : genres) {
+            byId.putIfAbsent(genre.getId(), genre);
+        }
+        return new LinkedHashSet<>(byId.values());
+    }
+
+    private static Set<Integer> toGenreIds(Set<Genre> genres) {
+        Set<Integer> ids = new HashSet<>();
+        for (Genre genre : genres) {
+            ids.add(genre.getId());
+        }
+        return ids;
+    }
+
+    private static Film copyOf(Film film) {
+        Set<Genre> genres = new LinkedHashSet<>();
+        for (Genre genre : film.getGenres()) {
+            genres.add(new Genre(genre.getId(), genre.getName()));
+        }
+        return new Film(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration(), new Mpa(film.getMpa().getId(), film.getMpa().getName()), genres,
+                film.getLikeCount());
+    }
+
+    /**
+     * Слушатели получают фильм после фиксации транзакции, когда жанры фильма уже записаны.
+     */
+    private void notifySaved(List<Film> films) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            for (Film film : films) {
+                listeners.forEach(listener -> listener.onFilmSaved(film));
+            }
+        });
+    }
+}
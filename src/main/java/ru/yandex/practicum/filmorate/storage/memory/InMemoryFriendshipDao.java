@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.db.friendship.FriendshipDao;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Дружба без базы данных: индекс {@link FriendGraph} становится единственным местом хранения.
+ * Признак взаимности не хранится — он определяется наличием обратной связи в том же индексе.
+ */
+@Slf4j
+@Component
+@Profile("memory")
+@RequiredArgsConstructor
+public class InMemoryFriendshipDao implements FriendshipDao {
+    private final InMemoryUserStorage userStorage;
+    private final FriendGraph friendGraph;
+    private final List<CatalogChangeListener> changeListeners;
+
+    @Override
+    public synchronized void addFriend(Long userId, Long friendId, boolean isFriend) {
+        log.debug("addFriend({}, {}, {})", userId, friendId, isFriend);
+        if (friendGraph.isFriend(userId, friendId)) {
+            throw new DuplicateKeyException(format("Пользователь %s уже добавил в друзья пользователя %s",
+                    userId, friendId));
+        }
+        if (!userStorage.isContains(userId) || !userStorage.isContains(friendId)) {
+            throw new DataIntegrityViolationException(format("Дружба ссылается на отсутствующего пользователя "
+                    + "%s или %s", userId, friendId));
+        }
+        friendGraph.addFriend(userId, friendId);
+        changeListeners.forEach(listener -> listener.onFriendAdded(userId, friendId));
+    }
+
+    @Override
+    public synchronized void deleteFriend(Long userId, Long friendId) {
+        log.debug("deleteFriend({}, {})", userId, friendId);
+        if (friendGraph.isFriend(userId, friendId)) {
+            friendGraph.deleteFriend(userId, friendId);
+            changeListeners.forEach(listener -> listener.onFriendDeleted(userId, friendId));
+        }
+    }
+
+    @Override
+    public List<Long> getFriends(Long userId) {
+        log.debug("getFriends({})", userId);
+        List<Long> friendsList = Arrays.stream(friendGraph.getFriends(userId))
+                .boxed()
+                .toList();
+        log.trace("Друзья пользователя с идентификатором {} : {}", userId, friendsList);
+        return friendsList;
+    }
+
+    @Override
+    public boolean isFriend(Long userId, Long friendId) {
+        return friendGraph.isFriend(userId, friendId);
+    }
+
+    public void clear() {
+        log.debug("clear()");
+        friendGraph.clear();
+    }
+}
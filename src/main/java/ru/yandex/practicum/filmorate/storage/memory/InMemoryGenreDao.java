@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceSnapshot;
+import ru.yandex.practicum.filmorate.storage.db.genre.GenreDao;
+
+import java.util.List;
+
+/**
+ * Справочник жанров без базы данных: те же записи, что загружает data.sql.
+ */
+@Slf4j
+@Component
+@Profile("memory")
+public class InMemoryGenreDao implements GenreDao {
+    private final ReferenceSnapshot<Genre> snapshot = ReferenceSnapshot.of(List.of(
+            new Genre(1, "Комедия"),
+            new Genre(2, "Драма"),
+            new Genre(3, "Мультфильм"),
+            new Genre(4, "Триллер"),
+            new Genre(5, "Документальный"),
+            new Genre(6, "Боевик")), Genre::getId);
+
+    @Override
+    public Genre getGenreById(Integer id) {
+        log.debug("getGenreById({})", id);
+        Genre genre = snapshot.get(id);
+        if (genre == null) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        log.trace("Тип жанра с id {} был найден", id);
+        return copyOf(genre);
+    }
+
+    @Override
+    public List<Genre> getGenres() {
+        log.debug("getGenres()");
+        List<Genre> genreList = snapshot.values().stream()
+                .map(InMemoryGenreDao::copyOf)
+                .toList();
+        log.trace("Все типы жанров: {}", genreList);
+        return genreList;
+    }
+
+    @Override
+    public boolean isContains(Integer id) {
+        log.debug("isContains({})", id);
+        boolean isContains = snapshot.contains(id);
+        log.trace("Жанр с идентификатором {} найден: {}", id, isContains);
+        return isContains;
+    }
+
+    @Override
+    public String getGenresETag() {
+        return snapshot.etag();
+    }
+
+    private static Genre copyOf(Genre genre) {
+        return new Genre(genre.getId(), genre.getName());
+    }
+}
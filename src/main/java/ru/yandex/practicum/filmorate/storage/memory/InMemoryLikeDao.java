@@ -0,0 +1,262 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.db.like.LikeDao;
+import ru.yandex.practicum.filmorate.storage.db.like.LikeListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+import static java.lang.String.format;
+
+/**
+ * Лайки в памяти: для каждого пользователя отсортированный массив id понравившихся фильмов.
+ * Счётчик лайков фильма в {@link InMemoryFilmStorage} меняется, а слушатели уведомляются под блокировкой
+ * записи вместе с самим лайком, в порядке изменений. В отличие от {@code LikeDaoImpl}, уведомления не ждут
+ * фиксации транзакции: откатов в памяти нет, а порядок под блокировкой нужен индексам, которые после
+ * восстановления каталога заполняются при первом чтении (см. {@code DeferredFill}).
+ */
+@Slf4j
+@Component
+@Profile("memory")
+@RequiredArgsConstructor
+public class InMemoryLikeDao implements LikeDao {
+    private static final long[] EMPTY = new long[0];
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+    private final List<LikeListener> listeners;
+    private final List<CatalogChangeListener> changeListeners;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongObjectHashMap<long[]> filmsByUser = new LongObjectHashMap<>();
+
+    @Override
+    public void like(Long filmId, Long userId) {
+        log.debug("like({}, {})", filmId, userId);
+        lock.writeLock().lock();
+        try {
+            if (contains(filmId, userId)) {
+                throw new DuplicateKeyException(format("Пользователь %s уже поставил лайк фильму %s",
+                        userId, filmId));
+            }
+            checkReferences(filmId, userId);
+            add(filmId, userId);
+            changeListeners.forEach(listener -> listener.onLike(filmId, userId));
+            filmStorage.changeLikeCount(filmId, 1);
+            listeners.forEach(listener -> listener.onLike(filmId, userId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.trace("Фильм {} понравился пользователю {}", filmId, userId);
+    }
+
+    @Override
+    public void dislike(Long filmId, Long userId) {
+        log.debug("dislike({}, {})", filmId, userId);
+        lock.writeLock().lock();
+        try {
+            if (remove(filmId, userId)) {
+                changeListeners.forEach(listener -> listener.onDislike(filmId, userId));
+                filmStorage.changeLikeCount(filmId, -1);
+                listeners.forEach(listener -> listener.onDislike(filmId, userId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.trace("Пользователь {} убрал лайк с фильма {}", userId, filmId);
+    }
+
+    @Override
+    public boolean isLiked(Long filmId, Long userId) {
+        log.debug("isLiked({}, {})", filmId, userId);
+        boolean isLiked;
+        lock.readLock().lock();
+        try {
+            isLiked = contains(filmId, userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        log.trace("Пользователь {} поставил лайк фильму {}: {}", userId, filmId, isLiked);
+        return isLiked;
+    }
+
+    /**
+     * Как и в базе данных, повторные лайки и лайки несуществующих фильмов или пользователей пропускаются,
+     * а слушатели получают только действительно применённые изменения.
+     */
+    @Override
+    public void applyChanges(Collection<Like> liked, Collection<Like> disliked) {
+        log.debug("applyChanges({} лайков, {} отмен)", liked.size(), disliked.size());
+        int applied = 0;
+        lock.writeLock().lock();
+        try {
+            for (Like like : liked) {
+                if (!contains(like.getFilmId(), like.getUserId()) && filmStorage.isContains(like.getFilmId())
+                        && userStorage.isContains(like.getUserId())) {
+                    add(like.getFilmId(), like.getUserId());
+                    changeListeners.forEach(listener -> listener.onLike(like.getFilmId(), like.getUserId()));
+                    filmStorage.changeLikeCount(like.getFilmId(), 1);
+                    listeners.forEach(listener -> listener.onLike(like.getFilmId(), like.getUserId()));
+                    applied++;
+                }
+            }
+            for (Like like : disliked) {
+                if (remove(like.getFilmId(), like.getUserId())) {
+                    changeListeners.forEach(listener -> listener.onDislike(like.getFilmId(), like.getUserId()));
+                    filmStorage.changeLikeCount(like.getFilmId(), -1);
+                    listeners.forEach(listener -> listener.onDislike(like.getFilmId(), like.getUserId()));
+                    applied++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.trace("Применено изменений лайков: {}", applied);
+    }
+
+    /**
+     * Применяет лайк или его отмену из журнала изменений; повторное применение ничего не меняет.
+     * Счётчики лайков фильмов и слушатели не затрагиваются, после восстановления вызывается {@link #recountLikes()}.
+     */
+    public void restoreLike(long filmId, long userId, boolean liked) {
+        lock.writeLock().lock();
+        try {
+            if (liked && !contains(filmId, userId)) {
+                add(filmId, userId);
+            } else if (!liked) {
+                remove(filmId, userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Заменяет лайки пользователя отсортированным массивом id фильмов из снимка каталога.
+     * Счётчики лайков фильмов и слушатели не затрагиваются.
+     */
+    public void restoreLikes(long userId, long[] filmIds) {
+        lock.writeLock().lock();
+        try {
+            filmsByUser.put(userId, filmIds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Пересчитывает счётчики лайков всех фильмов по хранимым лайкам. Снимок каталога снимается без остановки
+     * записи, поэтому в нём могут быть лайки фильмов, которые появятся только при воспроизведении журнала:
+     * счётчики считаются один раз, когда восстановлены и фильмы, и лайки.
+     */
+    public void recountLikes() {
+        Map<Long, Long> counts = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            filmsByUser.forEach((userId, films) -> {
+                for (long filmId : films) {
+                    counts.merge(filmId, 1L, Long::sum);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        filmStorage.restoreLikeCounts(counts);
+    }
+
+    /**
+     * Обходит непустые массивы лайков пользователей. Массивы не изменяются после публикации,
+     * поэтому под блокировкой собираются только ссылки, а действие выполняется без неё.
+     */
+    public void forEachUserLikes(BiConsumer<Long, long[]> action) {
+        List<Long> userIds = new ArrayList<>();
+        List<long[]> filmIds = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            filmsByUser.forEach((userId, films) -> {
+                if (films.length > 0) {
+                    userIds.add(userId);
+                    filmIds.add(films);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (int i = 0; i < userIds.size(); i++) {
+            action.accept(userIds.get(i), filmIds.get(i));
+        }
+    }
+
+    /**
+     * Выполняет действие под блокировкой чтения: пока оно выполняется, лайки не меняются и слушатели
+     * не получают уведомлений.
+     */
+    public void readLocked(Runnable action) {
+        lock.readLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        log.debug("clear()");
+        lock.writeLock().lock();
+        try {
+            filmsByUser.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void checkReferences(Long filmId, Long userId) {
+        if (!filmStorage.isContains(filmId) || !userStorage.isContains(userId)) {
+            throw new DataIntegrityViolationException(format("Лайк ссылается на отсутствующий фильм %s "
+                    + "или пользователя %s", filmId, userId));
+        }
+    }
+
+    private boolean contains(long filmId, long userId) {
+        long[] films = filmsByUser.get(userId);
+        return films != null && Arrays.binarySearch(films, filmId) >= 0;
+    }
+
+    private void add(long filmId, long userId) {
+        long[] current = filmsByUser.get(userId);
+        if (current == null) {
+            current = EMPTY;
+        }
+        int insertAt = -Arrays.binarySearch(current, filmId) - 1;
+        long[] updated = new long[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, insertAt);
+        updated[insertAt] = filmId;
+        System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+        filmsByUser.put(userId, updated);
+    }
+
+    private boolean remove(long filmId, long userId) {
+        long[] current = filmsByUser.get(userId);
+        int position = current == null ? -1 : Arrays.binarySearch(current, filmId);
+        if (position < 0) {
+            return false;
+        }
+        long[] updated = new long[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, position);
+        System.arraycopy(current, position + 1, updated, position, current.length - position - 1);
+        filmsByUser.put(userId, updated);
+        return true;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceSnapshot;
+import ru.yandex.practicum.filmorate.storage.db.mpa.MpaDao;
+
+import java.util.List;
+
+/**
+ * Справочник MPA-рейтингов без базы данных: те же записи, что загружает data.sql.
+ */
+@Slf4j
+@Component
+@Profile("memory")
+public class InMemoryMpaDao implements MpaDao {
+    private final ReferenceSnapshot<Mpa> snapshot = ReferenceSnapshot.of(List.of(
+            new Mpa(1, "G"),
+            new Mpa(2, "PG"),
+            new Mpa(3, "PG-13"),
+            new Mpa(4, "R"),
+            new Mpa(5, "NC-17")), Mpa::getId);
+
+    @Override
+    public Mpa getMpaById(Integer id) {
+        log.debug("getMpaById({})", id);
+        Mpa mpa = snapshot.get(id);
+        if (mpa == null) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        log.trace("MPA-рейтинг {} был возвращен", mpa);
+        return copyOf(mpa);
+    }
+
+    @Override
+    public List<Mpa> getMpaList() {
+        log.debug("getMpaList()");
+        List<Mpa> mpaList = snapshot.values().stream()
+                .map(InMemoryMpaDao::copyOf)
+                .toList();
+        log.trace("Все MPA-рейтинги: {}", mpaList);
+        return mpaList;
+    }
+
+    @Override
+    public boolean isContains(Integer id) {
+        log.debug("isContains({})", id);
+        boolean isContains = snapshot.contains(id);
+        log.trace("MPA с идентификатором {} найден: {}", id, isContains);
+        return isContains;
+    }
+
+    @Override
+    public String getMpaListETag() {
+        return snapshot.etag();
+    }
+
+    private static Mpa copyOf(Mpa mpa) {
+        return new Mpa(mpa.getId(), mpa.getName());
+    }
+}
@@ -0,0 +1,266 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.db.user.UserStorage;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+
+/**
+ * Хранилище пользователей в памяти. Как и в базе данных, email и логин уникальны:
+ * повтор приводит к {@link DuplicateKeyException}. Наружу отдаются только копии.
+ */
+@Slf4j
+@Component("InMemoryUserStorage")
+@Profile("memory")
+@RequiredArgsConstructor
+public class InMemoryUserStorage implements UserStorage {
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+    private final FriendGraph friendGraph;
+    private final List<CatalogChangeListener> changeListeners;
+    /**
+     * Счётчик не сбрасывается при очистке хранилища, как и identity-столбец в базе данных.
+     */
+    private final AtomicLong lastId = new AtomicLong();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongObjectHashMap<User> usersById = new LongObjectHashMap<>();
+    private final Map<String, Long> idsByEmail = new HashMap<>();
+    private final Map<String, Long> idsByLogin = new HashMap<>();
+    private final SortedIds order = new SortedIds();
+
+    @Override
+    public User createUser(User user) {
+        log.debug("createUser({})", user);
+        User thisUser = copyOf(user);
+        lock.writeLock().lock();
+        try {
+            checkUnique(thisUser, null);
+            thisUser.setId(lastId.incrementAndGet());
+            store(thisUser, null);
+            changeListeners.forEach(listener -> listener.onUserSaved(thisUser));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.trace("{} был добавлен в хранилище", thisUser);
+        return copyOf(thisUser);
+    }
+
+    @Override
+    public User updateUser(User user) {
+        log.debug("updateUser({})", user);
+        lock.writeLock().lock();
+        try {
+            User current = find(user.getId());
+            if (current != null) {
+                checkUnique(user, current.getId());
+                User updated = copyOf(user);
+                store(updated, current);
+                changeListeners.forEach(listener -> listener.onUserSaved(updated));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        User thisUser = getUserById(user.getId());
+        log.trace("{} был обновлён в хранилище", thisUser);
+        return thisUser;
+    }
+
+    @Override
+    public User getUserById(Long id) {
+        log.debug("getUserById({})", id);
+        User thisUser;
+        lock.readLock().lock();
+        try {
+            User stored = find(id);
+            if (stored == null) {
+                throw new EmptyResultDataAccessException(1);
+            }
+            thisUser = copyOf(stored);
+        } finally {
+            lock.readLock().unlock();
+        }
+        log.trace("{} был возвращён", thisUser);
+        return thisUser;
+    }
+
+    @Override
+    public List<User> getUsers() {
+        log.debug("getUsers()");
+        List<User> users;
+        lock.readLock().lock();
+        try {
+            users = copiesOf(order.toArray());
+        } finally {
+            lock.readLock().unlock();
+        }
+        log.trace("Пользователи в хранилище: {}", users);
+        return users;
+    }
+
+    @Override
+    public List<User> getUsersAfter(Long afterId, Integer limit) {
+        log.debug("getUsersAfter({}, {})", afterId, limit);
+        List<User> users = page(afterId, limit);
+        log.trace("Страница пользователей после id {}: {}", afterId, users);
+        return users;
+    }
+
+    @Override
+    public void forEachUser(Consumer<User> action) {
+        log.debug("forEachUser()");
+        long afterId = 0L;
+        List<User> chunk = page(afterId, EXPORT_CHUNK_SIZE);
+        while (!chunk.isEmpty()) {
+            chunk.forEach(action);
+            afterId = chunk.get(chunk.size() - 1).getId();
+            chunk = page(afterId, EXPORT_CHUNK_SIZE);
+        }
+    }
+
+    @Override
+    public List<User> getFriendsByUserId(Long userId) {
+        log.debug("getFriendsByUserId({})", userId);
+        return getUsersByIds(friendGraph.getFriends(userId));
+    }
+
+    @Override
+    public List<User> getCommonFriends(Long userId, Long friendId) {
+        log.debug("getCommonFriends({}, {})", userId, friendId);
+        return getUsersByIds(friendGraph.getCommonFriends(userId, friendId));
+    }
+
+    /**
+     * Пользователи по возрастанию id, как и в {@code UserDbStorage}; отсутствующие id пропускаются.
+     */
+    @Override
+    public List<User> getUsersByIds(long[] ids) {
+        log.debug("getUsersByIds({} шт.)", ids.length);
+        long[] sorted = Arrays.stream(ids).sorted().distinct().toArray();
+        List<User> users;
+        lock.readLock().lock();
+        try {
+            users = copiesOf(sorted);
+        } finally {
+            lock.readLock().unlock();
+        }
+        log.trace("Пользователи по списку id: {}", users);
+        return users;
+    }
+
+    @Override
+    public Boolean isContains(Long id) {
+        log.debug("isContains({})", id);
+        boolean isContains;
+        lock.readLock().lock();
+        try {
+            isContains = find(id) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+        log.trace("Пользователь с id {} найден: {}", id, isContains);
+        return isContains;
+    }
+
+    /**
+     * Записывает пользователя из снимка или журнала изменений без проверки уникальности: промежуточные
+     * состояния при воспроизведении журнала могут пересекаться, итоговое — нет. Слушатели не уведомляются.
+     */
+    public void restoreUser(User user) {
+        lock.writeLock().lock();
+        try {
+            store(copyOf(user), usersById.get(user.getId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastId.accumulateAndGet(user.getId(), Math::max);
+    }
+
+    public void clear() {
+        log.debug("clear()");
+        lock.writeLock().lock();
+        try {
+            usersById.clear();
+            idsByEmail.clear();
+            idsByLogin.clear();
+            order.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private User find(Long id) {
+        return id == null ? null : usersById.get(id);
+    }
+
+    /**
+     * Проверяет уникальность email и логина; selfId — id изменяемого пользователя, его собственные
+     * значения конфликтом не считаются. Вызывается под блокировкой записи.
+     */
+    private void checkUnique(User user, Long selfId) {
+        Long emailOwner = idsByEmail.get(user.getEmail());
+        if (emailOwner != null && !emailOwner.equals(selfId)) {
+            throw new DuplicateKeyException(format("Пользователь с email %s уже существует", user.getEmail()));
+        }
+        Long loginOwner = idsByLogin.get(user.getLogin());
+        if (loginOwner != null && !loginOwner.equals(selfId)) {
+            throw new DuplicateKeyException(format("Пользователь с логином %s уже существует", user.getLogin()));
+        }
+    }
+
+    /**
+     * Записывает пользователя вместо previous. Вызывается под блокировкой записи.
+     */
+    private void store(User user, User previous) {
+        if (previous != null) {
+            idsByEmail.remove(previous.getEmail(), previous.getId());
+            idsByLogin.remove(previous.getLogin(), previous.getId());
+        }
+        usersById.put(user.getId(), user);
+        idsByEmail.put(user.getEmail(), user.getId());
+        idsByLogin.put(user.getLogin(), user.getId());
+        order.add(user.getId());
+    }
+
+    private List<User> page(long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            return copiesOf(order.after(afterId, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Вызывается под блокировкой чтения.
+     */
+    private List<User> copiesOf(long[] ids) {
+        List<User> copies = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            User stored = usersById.get(id);
+            if (stored != null) {
+                copies.add(copyOf(stored));
+            }
+        }
+        return copies;
+    }
+
+    private static User copyOf(User user) {
+        return new User(user.getId(), user.getEmail(), user.getLogin(), user.getName(), user.getBirthday());
+    }
+}
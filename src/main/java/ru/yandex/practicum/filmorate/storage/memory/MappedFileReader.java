@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Последовательное чтение файла, отображённого в память окнами по {@link MappedFileWriter#WINDOW_SIZE} байт.
+ * Попытка прочитать за концом файла завершается {@link EOFException}.
+ */
+final class MappedFileReader implements Closeable {
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    MappedFileReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+        map(0, 0);
+    }
+
+    long remaining() {
+        return size - windowStart - window.position();
+    }
+
+    int getInt() throws IOException {
+        return ensure(Integer.BYTES).getInt();
+    }
+
+    long getLong() throws IOException {
+        return ensure(Long.BYTES).getLong();
+    }
+
+    /**
+     * Возвращает следующие length байт без копирования; буфер действителен, пока открыт файл.
+     */
+    ByteBuffer slice(int length) throws IOException {
+        MappedByteBuffer source = ensure(length);
+        ByteBuffer slice = source.slice(source.position(), length);
+        source.position(source.position() + length);
+        return slice;
+    }
+
+    long[] getLongs(int count) throws IOException {
+        long[] values = new long[count];
+        int offset = 0;
+        while (offset < count) {
+            MappedByteBuffer source = ensure(Long.BYTES);
+            LongBuffer view = source.asLongBuffer();
+            int chunk = Math.min(view.remaining(), count - offset);
+            view.get(values, offset, chunk);
+            source.position(source.position() + chunk * Long.BYTES);
+            offset += chunk;
+        }
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private MappedByteBuffer ensure(int bytes) throws IOException {
+        if (window.remaining() < bytes) {
+            if (bytes < 0 || remaining() < bytes) {
+                throw new EOFException("Файл закончился раньше ожидаемого");
+            }
+            map(windowStart + window.position(), bytes);
+        }
+        return window;
+    }
+
+    private void map(long start, int minLength) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                Math.min(size - start, Math.max(MappedFileWriter.WINDOW_SIZE, minLength)));
+        windowStart = start;
+    }
+}
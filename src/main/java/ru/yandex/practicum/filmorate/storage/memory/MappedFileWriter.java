@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Последовательная запись файла через отображение в память окнами по {@link #WINDOW_SIZE} байт:
+ * данные копируются прямо в страничный кеш без промежуточных буферов и системных вызовов на каждую запись.
+ * Ошибки ввода-вывода при переходе к следующему окну выбрасываются как {@link UncheckedIOException},
+ * чтобы писать можно было из обходчиков хранилищ.
+ */
+final class MappedFileWriter implements Closeable {
+    static final int WINDOW_SIZE = 64 << 20;
+    private final FileChannel channel;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    MappedFileWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map(0, 0);
+    }
+
+    void putInt(int value) {
+        ensure(Integer.BYTES).putInt(value);
+    }
+
+    void putLong(long value) {
+        ensure(Long.BYTES).putLong(value);
+    }
+
+    void put(ByteBuffer source) {
+        ensure(source.remaining()).put(source);
+    }
+
+    void putLongs(long[] values) {
+        int offset = 0;
+        while (offset < values.length) {
+            MappedByteBuffer target = ensure(Long.BYTES);
+            LongBuffer view = target.asLongBuffer();
+            int count = Math.min(view.remaining(), values.length - offset);
+            view.put(values, offset, count);
+            target.position(target.position() + count * Long.BYTES);
+            offset += count;
+        }
+    }
+
+    /**
+     * Сбрасывает записанное на диск и обрезает файл по фактическому размеру.
+     */
+    void finish() throws IOException {
+        long size = windowStart + window.position();
+        window.force();
+        channel.truncate(size);
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private MappedByteBuffer ensure(int bytes) {
+        if (window.remaining() < bytes) {
+            try {
+                map(windowStart + window.position(), bytes);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+        return window;
+    }
+
+    private void map(long start, int minLength) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.max(WINDOW_SIZE, minLength));
+        windowStart = start;
+    }
+}
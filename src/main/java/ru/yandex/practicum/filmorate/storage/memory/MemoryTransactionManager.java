@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Менеджер транзакций для хранилищ в памяти. Своих ресурсов у него нет: каждая операция хранилища
+ * атомарна сама по себе, а откат не поддерживается. Нужен, чтобы @Transactional и TransactionTemplate
+ * в сервисах работали без базы данных, а {@code TransactionHooks.afterCommit} по-прежнему откладывал
+ * уведомления до конца внешней транзакции.
+ * <p>
+ * Если транзакция завершается ошибкой, записи, сделанные до ошибки, остаются в хранилищах: например,
+ * фильм, созданный до сбоя при записи его жанров, или уже записанные фильмы порции импорта. Сервисы
+ * проверяют ссылки на жанры, MPA и пользователей до первой записи, поэтому такое возможно только
+ * при непредвиденном сбое.
+ */
+@Component("transactionManager")
+@Profile("memory")
+public class MemoryTransactionManager extends AbstractPlatformTransactionManager {
+
+    private record MemoryTransaction(boolean existing) {
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        return new MemoryTransaction(TransactionSynchronizationManager.isActualTransactionActive());
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((MemoryTransaction) transaction).existing();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        // ресурсов для привязки к потоку нет
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        return transaction;
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        // приостановленная транзакция ничего не удерживает
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        // изменения уже применены к хранилищам
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        // изменения уже применены к хранилищам, уведомления после фиксации не отправляются
+    }
+}
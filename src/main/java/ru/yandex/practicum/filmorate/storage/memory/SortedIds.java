@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import java.util.Arrays;
+
+/**
+ * Отсортированный массив id для обхода хранилища по порядку и постраничной выдачи после заданного id.
+ * Новые id почти всегда больше уже записанных, поэтому вставка обычно сводится к добавлению в конец.
+ * Не потокобезопасен.
+ */
+final class SortedIds {
+    private long[] ids = new long[16];
+    private int size;
+
+    void add(long id) {
+        int insertAt = size;
+        if (size > 0 && ids[size - 1] >= id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            insertAt = -position - 1;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+    }
+
+    /**
+     * Не больше limit id, больших afterId, по возрастанию.
+     */
+    long[] after(long afterId, int limit) {
+        int position = Arrays.binarySearch(ids, 0, size, afterId);
+        int from = position >= 0 ? position + 1 : -position - 1;
+        return Arrays.copyOfRange(ids, from, from + Math.max(0, Math.min(limit, size - from)));
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
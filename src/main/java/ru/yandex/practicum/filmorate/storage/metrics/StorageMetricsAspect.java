@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.storage.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики вызовов хранилищ и DAO из пакета storage.db и хранилищ в памяти из storage.memory:
+ * время выполнения с перцентилями, количество возвращённых строк и количество ошибок. Все метрики
+ * помечены тегом operation вида FilmDbStorage.getFilms и доступны через /actuator/metrics
+ * и /actuator/prometheus.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class StorageMetricsAspect {
+    static final String CALLS = "filmorate.storage.calls";
+    static final String ROWS = "filmorate.storage.rows";
+    static final String ERRORS = "filmorate.storage.errors";
+    private final MeterRegistry registry;
+    private final Map<MeterKey, Meters> meters = new ConcurrentHashMap<>();
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.storage.db..*(..))"
+            + " || execution(public * ru.yandex.practicum.filmorate.storage.memory.InMemory*.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Class<?> type = AopUtils.getTargetClass(joinPoint.getTarget());
+        Meters operation = meters.computeIfAbsent(new MeterKey(type, method), this::register);
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            long rows = countRows(result);
+            if (rows >= 0) {
+                operation.rows().record(rows);
+            }
+            return result;
+        } catch (Throwable throwable) {
+            operation.errors().increment();
+            throw throwable;
+        } finally {
+            operation.calls().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Meters register(MeterKey key) {
+        String operation = key.type().getSimpleName() + "." + key.method().getName();
+        return new Meters(
+                Timer.builder(CALLS)
+                        .description("Время выполнения запросов к хранилищу")
+                        .tag("operation", operation)
+                        .publishPercentiles(0.5, 0.99, 0.999)
+                        .publishPercentileHistogram()
+                        .register(registry),
+                DistributionSummary.builder(ROWS)
+                        .description("Количество строк, возвращённых хранилищем")
+                        .tag("operation", operation)
+                        .register(registry),
+                Counter.builder(ERRORS)
+                        .description("Количество ошибок при обращении к хранилищу")
+                        .tag("operation", operation)
+                        .register(registry));
+    }
+
+    /**
+     * Число строк в результате: размер коллекции, словаря или массива, 0 или 1 для Optional и 1 для
+     * одиночного объекта. Для void и boolean возвращает -1, и такие вызовы в метрику строк не попадают.
+     */
+    static long countRows(Object result) {
+        if (result == null || result instanceof Boolean) {
+            return -1;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof long[] array) {
+            return array.length;
+        }
+        if (result instanceof int[] array) {
+            return array.length;
+        }
+        if (result instanceof Object[] array) {
+            return array.length;
+        }
+        return 1;
+    }
+
+    private record MeterKey(Class<?> type, Method method) {
+    }
+
+    private record Meters(Timer calls, DistributionSummary rows, Counter errors) {
+    }
+}
@@ -5,6 +5,7 @@ DROP TABLE IF EXISTS film_genre CASCADE;
 DROP TABLE IF EXISTS users CASCADE;
 DROP TABLE IF EXISTS friends CASCADE;
 DROP TABLE IF EXISTS likes CASCADE;
+DROP TABLE IF EXISTS replica_heartbeat CASCADE;
 
 CREATE TABLE IF NOT EXISTS film_mpa (
     mpa_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -17,9 +18,14 @@ CREATE TABLE IF NOT EXISTS films (
     description VARCHAR(200),
     release_date DATE,
     duration INTEGER CHECK (duration > 0),
-    mpa_id INTEGER REFERENCES film_mpa (mpa_id) ON DELETE RESTRICT
+    mpa_id INTEGER REFERENCES film_mpa (mpa_id) ON DELETE RESTRICT,
+    like_count BIGINT NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
+CREATE INDEX IF NOT EXISTS films_like_count_idx ON films (like_count DESC, film_id);
+CREATE INDEX IF NOT EXISTS films_mpa_id_idx ON films (mpa_id);
+
 CREATE TABLE IF NOT EXISTS genre (
     genre_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     genre_type VARCHAR NOT NULL UNIQUE
@@ -31,6 +37,8 @@ CREATE TABLE IF NOT EXISTS film_genre (
     PRIMARY KEY (film_id, genre_id)
 );
 
+CREATE INDEX IF NOT EXISTS film_genre_genre_id_idx ON film_genre (genre_id);
+
 CREATE TABLE IF NOT EXISTS users (
     user_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     email VARCHAR NOT NULL UNIQUE,
@@ -46,8 +54,17 @@ CREATE TABLE IF NOT EXISTS friends (
     PRIMARY KEY (user_id, friend_id)
 );
 
+CREATE INDEX IF NOT EXISTS friends_friend_id_idx ON friends (friend_id);
+
 CREATE TABLE IF NOT EXISTS likes (
     film_id BIGINT NOT NULL REFERENCES films (film_id) ON DELETE CASCADE,
     user_id BIGINT NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
     PRIMARY KEY (film_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS likes_user_id_idx ON likes (user_id);
+
+CREATE TABLE IF NOT EXISTS replica_heartbeat (
+    id INTEGER PRIMARY KEY,
+    beat_at BIGINT NOT NULL
 );
\ No newline at end of file
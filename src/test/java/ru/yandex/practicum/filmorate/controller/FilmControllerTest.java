@@ -1,33 +1,62 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
 import ru.yandex.practicum.filmorate.exception.ObjectAlreadyExistsException;
 import ru.yandex.practicum.filmorate.exception.ObjectNotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmDbService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
 import ru.yandex.practicum.filmorate.service.UserDbService;
+import ru.yandex.practicum.filmorate.storage.StorageCleaner;
+import ru.yandex.practicum.filmorate.storage.cache.ResponseCache;
+import ru.yandex.practicum.filmorate.storage.db.film.FilmStorage;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
 @SpringBootTest
 @AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@Import(StorageCleaner.class)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class FilmControllerTest {
     private final FilmDbService filmService;
     private final UserDbService userService;
-    private final JdbcTemplate jdbcTemplate;
+    private final RecommendationService recommendationService;
+    private final StorageCleaner storageCleaner;
+    private final FilmStorage filmStorage;
+    private final MeterRegistry meterRegistry;
+    private final ResponseCache responseCache;
+    private final MockMvc mockMvc;
     private final User user = new User("gg@yandex.ru", "GGA", "Gleb",
             LocalDate.of(1996, 12, 3));
     private final Film film = new Film("Первый фильм", "Описание первого",
@@ -44,8 +73,7 @@ public class FilmControllerTest {
 
     @AfterEach
     void afterEach() {
-        jdbcTemplate.execute("DELETE FROM users");
-        jdbcTemplate.execute("DELETE FROM films");
+        storageCleaner.clear();
     }
 
     @Test
@@ -57,6 +85,23 @@ public class FilmControllerTest {
         Assertions.assertFalse(filmService.getFilms().isEmpty());
     }
 
+    @Test
+    public void importFilmsShouldCreateValidFilmsAndReportInvalidOnes() {
+        film.setMpa(new Mpa(1));
+        film.setGenres(Set.of(new Genre(1), new Genre(2)));
+        unexistingFilm.setMpa(new Mpa(99));
+        popularFilm.setMpa(new Mpa(2));
+        popularFilm.setGenres(Set.of());
+        List<ImportResult> results = filmService.importFilms(List.of(film, unexistingFilm, popularFilm));
+
+        Assertions.assertNotNull(results.get(0).getId());
+        Assertions.assertNull(results.get(1).getId());
+        Assertions.assertNotNull(results.get(1).getError());
+        Assertions.assertNotNull(results.get(2).getId());
+        Assertions.assertEquals(2, filmService.getFilms().size());
+        Assertions.assertEquals(2, filmService.getFilmById(results.get(0).getId()).getGenres().size());
+    }
+
     @Test
     public void updateFilmShouldUpdateFilm() {
         film.setMpa(new Mpa(1));
@@ -69,6 +114,24 @@ public class FilmControllerTest {
                 filmService.getFilmById(filmUpdated.getId()).getName());
     }
 
+    @Test
+    public void updateFilmShouldReplaceGenresAndKeepLikeCount() {
+        User newUser = userService.createUser(user);
+        film.setMpa(new Mpa(1));
+        film.setGenres(Set.of(new Genre(1), new Genre(2)));
+        Film newFilm = filmService.createFilm(film);
+        filmService.like(newFilm.getId(), newUser.getId());
+        newFilm.setMpa(new Mpa(3));
+        newFilm.setGenres(Set.of(new Genre(2), new Genre(3)));
+        Film filmUpdated = filmService.updateFilm(newFilm);
+
+        Assertions.assertEquals(Set.of(new Genre(2, "Драма"), new Genre(3, "Мультфильм")),
+                filmUpdated.getGenres());
+        Assertions.assertEquals("PG-13", filmUpdated.getMpa().getName());
+        Assertions.assertEquals(1, filmUpdated.getLikeCount());
+        Assertions.assertEquals(filmUpdated, filmService.getFilmById(newFilm.getId()));
+    }
+
     @Test
     public void getFilmByIdShouldReturnFilm() {
         film.setMpa(new Mpa(1));
@@ -78,6 +141,26 @@ public class FilmControllerTest {
         Assertions.assertEquals(newFilm, filmService.getFilmById(newFilm.getId()));
     }
 
+    @Test
+    public void getFilmETagShouldChangeAfterUpdateAndLike() {
+        User newUser = userService.createUser(user);
+        film.setMpa(new Mpa(1));
+        film.setGenres(Set.of(new Genre(1)));
+        Film newFilm = filmService.createFilm(film);
+        String createdTag = filmService.getFilmETag(newFilm.getId());
+
+        Assertions.assertEquals(createdTag, filmService.getFilmETag(newFilm.getId()));
+
+        newFilm.setGenres(Set.of(new Genre(2)));
+        filmService.updateFilm(newFilm);
+        String updatedTag = filmService.getFilmETag(newFilm.getId());
+        filmService.like(newFilm.getId(), newUser.getId());
+
+        Assertions.assertNotEquals(createdTag, updatedTag);
+        Assertions.assertNotEquals(updatedTag, filmService.getFilmETag(newFilm.getId()));
+        Assertions.assertThrows(ObjectNotFoundException.class, () -> filmService.getFilmETag(145L));
+    }
+
     @Test
     public void getFilmByIdShouldNotReturnFilmIfIdIsIncorrect() {
         Assertions.assertThrows(ObjectNotFoundException.class, () -> filmService.getFilmById(145L));
@@ -95,6 +178,43 @@ public class FilmControllerTest {
         Assertions.assertEquals(2, filmService.getFilms().size());
     }
 
+    @Test
+    public void getFilmsShouldReturnFilmsWithGenresAndMpa() {
+        popularFilm.setMpa(new Mpa(4));
+        popularFilm.setGenres(Set.of(new Genre(3), new Genre(1)));
+        Film newFilm = filmService.createFilm(popularFilm);
+        Film filmFromList = filmService.getFilms().iterator().next();
+
+        Assertions.assertEquals(newFilm, filmFromList);
+        Assertions.assertEquals("R", filmFromList.getMpa().getName());
+        Assertions.assertEquals(2, filmFromList.getGenres().size());
+    }
+
+    @Test
+    public void exportFilmsShouldStreamAllFilms() {
+        film.setMpa(new Mpa(1));
+        film.setGenres(Set.of(new Genre(1), new Genre(2)));
+        filmService.createFilm(film);
+        popularFilm.setMpa(new Mpa(2));
+        popularFilm.setGenres(Set.of());
+        filmService.createFilm(popularFilm);
+        List<Film> exported = new ArrayList<>();
+        filmService.exportFilms(exported::add);
+
+        Assertions.assertEquals(filmService.getFilms(), exported);
+    }
+
+    @Test
+    public void getFilmsShouldBeTimedByStorageMetrics() {
+        filmService.getFilms();
+        Timer timer = meterRegistry.find("filmorate.storage.calls")
+                .tag("operation", AopUtils.getTargetClass(filmStorage).getSimpleName() + ".getFilms")
+                .timer();
+
+        Assertions.assertNotNull(timer);
+        Assertions.assertTrue(timer.count() > 0);
+    }
+
     @Test
     public void getFilmsShouldReturnAnEmptyListOfFilms() {
         Assertions.assertTrue(filmService.getFilms().isEmpty());
@@ -115,6 +235,58 @@ public class FilmControllerTest {
         Assertions.assertTrue(films.contains(likedMovie));
     }
 
+    @Test
+    public void getPopularMoviesShouldFilterByGenreMpaAndYear() {
+        User firstUser = userService.createUser(user);
+        User secondUser = userService.createUser(new User("petya@ya.ru", "PET", "Petya",
+                LocalDate.of(1993, 1, 30)));
+        Film comedy = new Film("Комедия", "Смешной фильм", LocalDate.of(1977, 5, 1), 90);
+        comedy.setMpa(new Mpa(1));
+        comedy.setGenres(Set.of(new Genre(1)));
+        Film drama = new Film("Драма", "Грустный фильм", LocalDate.of(1977, 8, 1), 120);
+        drama.setMpa(new Mpa(3));
+        drama.setGenres(Set.of(new Genre(2)));
+        Film comedyDrama = new Film("Трагикомедия", "И смешно, и грустно", LocalDate.of(1978, 2, 1), 100);
+        comedyDrama.setMpa(new Mpa(3));
+        comedyDrama.setGenres(Set.of(new Genre(1), new Genre(2)));
+        comedy = filmService.createFilm(comedy);
+        drama = filmService.createFilm(drama);
+        comedyDrama = filmService.createFilm(comedyDrama);
+        filmService.like(drama.getId(), firstUser.getId());
+        filmService.like(drama.getId(), secondUser.getId());
+        filmService.like(comedyDrama.getId(), firstUser.getId());
+
+        Assertions.assertEquals(List.of(drama, comedy), filmService.getPopularMovies(10, null, null, 1977));
+        Assertions.assertEquals(List.of(drama), filmService.getPopularMovies(10, 2, 3, 1977));
+
+        filmService.dislike(drama.getId(), firstUser.getId());
+        filmService.dislike(drama.getId(), secondUser.getId());
+        comedyDrama.setReleaseDate(LocalDate.of(1977, 12, 31));
+        comedyDrama.setGenres(Set.of(new Genre(1)));
+        filmService.updateFilm(comedyDrama);
+
+        Assertions.assertEquals(List.of(comedyDrama, comedy), filmService.getPopularMovies(10, 1, null, 1977));
+        Assertions.assertEquals(List.of(drama), filmService.getPopularMovies(10, 2, null, 1977));
+        Assertions.assertThrows(ObjectNotFoundException.class, () -> filmService.getPopularMovies(10, 99, null, null));
+    }
+
+    @Test
+    public void popularResponseCacheShouldBeInvalidatedByLike() {
+        User newUser = userService.createUser(user);
+        film.setMpa(new Mpa(1));
+        Film newFilm = filmService.createFilm(film);
+        ResponseCache.CachedResponse cached = responseCache.get("popular-test", () -> filmService.getPopularMovies(1));
+
+        Assertions.assertSame(cached, responseCache.get("popular-test", () -> filmService.getPopularMovies(1)));
+
+        filmService.like(newFilm.getId(), newUser.getId());
+        ResponseCache.CachedResponse refreshed = responseCache.get("popular-test",
+                () -> filmService.getPopularMovies(1));
+
+        Assertions.assertNotSame(cached, refreshed);
+        Assertions.assertTrue(new String(refreshed.json(), StandardCharsets.UTF_8).contains("\"likeCount\":1"));
+    }
+
     @Test
     public void likeShouldLikeAMovie() {
         User newUser = userService.createUser(user);
@@ -126,6 +298,66 @@ public class FilmControllerTest {
         Assertions.assertEquals(1, filmService.getPopularMovies(1).size());
     }
 
+    @Test
+    public void likeAndDislikeShouldUpdateLikeCount() {
+        User newUser = userService.createUser(user);
+        film.setMpa(new Mpa(2));
+        film.setGenres(Set.of(new Genre(1)));
+        Film newFilm = filmService.createFilm(film);
+        filmService.like(newFilm.getId(), newUser.getId());
+
+        Assertions.assertEquals(1, filmService.getFilmById(newFilm.getId()).getLikeCount());
+
+        filmService.dislike(newFilm.getId(), newUser.getId());
+
+        Assertions.assertEquals(0, filmService.getFilmById(newFilm.getId()).getLikeCount());
+    }
+
+    @Test
+    public void similarFilmsAndRecommendationsShouldFollowCoLikes() {
+        User firstUser = userService.createUser(user);
+        User secondUser = userService.createUser(new User("petya@ya.ru", "PET", "Petya",
+                LocalDate.of(1993, 1, 30)));
+        film.setMpa(new Mpa(1));
+        oneMoreFilm.setMpa(new Mpa(2));
+        popularFilm.setMpa(new Mpa(3));
+        Film first = filmService.createFilm(film);
+        Film second = filmService.createFilm(oneMoreFilm);
+        Film unrelated = filmService.createFilm(popularFilm);
+        filmService.like(first.getId(), firstUser.getId());
+        filmService.like(second.getId(), firstUser.getId());
+        filmService.like(first.getId(), secondUser.getId());
+
+        Assertions.assertEquals(List.of(second), recommendationService.getSimilarFilms(first.getId(), 10));
+        Assertions.assertEquals(List.of(second), recommendationService.getRecommendations(secondUser.getId(), 10));
+        Assertions.assertTrue(recommendationService.getSimilarFilms(unrelated.getId(), 10).isEmpty());
+
+        filmService.dislike(second.getId(), firstUser.getId());
+
+        Assertions.assertTrue(recommendationService.getSimilarFilms(first.getId(), 10).isEmpty());
+    }
+
+    @Test
+    public void searchFilmsShouldMatchPrefixesAndRankNameAboveDescription() {
+        film.setMpa(new Mpa(1));
+        Film byName = filmService.createFilm(film);
+        Film sequel = new Film("Ещё одна история", "Продолжение: первый снег", LocalDate.of(2020, 1, 1), 95);
+        sequel.setMpa(new Mpa(3));
+        Film byDescription = filmService.createFilm(sequel);
+        oneMoreFilm.setMpa(new Mpa(2));
+        filmService.createFilm(oneMoreFilm);
+
+        Assertions.assertEquals(List.of(byName, byDescription), filmService.searchFilms("перв", 10));
+        Assertions.assertEquals(List.of(byDescription), filmService.searchFilms("Первый СНЕГ", 10));
+        Assertions.assertTrue(filmService.searchFilms("вторник", 10).isEmpty());
+
+        byName.setName("Переименованный фильм");
+        byName.setDescription("Описание");
+        filmService.updateFilm(byName);
+
+        Assertions.assertEquals(List.of(byDescription), filmService.searchFilms("первый", 10));
+    }
+
     @Test
     public void likeShouldNotLikeAMoviesIfItsAlreadyLikedByUser() {
         User thisUser = userService.createUser(user);
@@ -148,4 +380,53 @@ public class FilmControllerTest {
         Assertions.assertThrows(ObjectNotFoundException.class,
                 () -> filmService.dislike(film.getId(), user.getId()));
     }
+
+    @Test
+    public void getFilmsPageShouldReturnNextCursorInBody() throws Exception {
+        film.setMpa(new Mpa(1));
+        Film first = filmService.createFilm(film);
+        oneMoreFilm.setMpa(new Mpa(2));
+        Film second = filmService.createFilm(oneMoreFilm);
+
+        mockMvc.perform(get("/films").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(first.getId()))
+                .andExpect(jsonPath("$.nextCursor").value(first.getId()));
+        mockMvc.perform(get("/films").param("limit", "1").param("after", first.getId().toString()))
+                .andExpect(jsonPath("$.items[0].id").value(second.getId()))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        mockMvc.perform(get("/films").param("after", first.getId().toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void likeRequestsShouldBeLimitedPerUser() throws Exception {
+        User limited = userService.createUser(user);
+        User other = userService.createUser(new User("other@yandex.ru", "other", "Other",
+                LocalDate.of(1990, 1, 1)));
+        film.setMpa(new Mpa(1));
+        Film thisFilm = filmService.createFilm(film);
+        String likePath = "/films/" + thisFilm.getId() + "/like/";
+
+        int accepted = 0;
+        boolean liked = false;
+        MockHttpServletResponse response;
+        while (true) {
+            response = mockMvc.perform(liked ? delete(likePath + limited.getId()) : put(likePath + limited.getId()))
+                    .andReturn().getResponse();
+            if (response.getStatus() != HttpStatus.OK.value() || accepted == 100) {
+                break;
+            }
+            liked = !liked;
+            accepted++;
+        }
+
+        // Ёмкость корзины лайков по умолчанию — 20, пополнение за время цикла может добавить ещё несколько.
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        Assertions.assertTrue(accepted >= 20 && accepted < 100, "Принято запросов: " + accepted);
+        Assertions.assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        mockMvc.perform(put(likePath + other.getId()))
+                .andExpect(status().isOk());
+    }
 }
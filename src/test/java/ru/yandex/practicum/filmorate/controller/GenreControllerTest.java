@@ -5,16 +5,25 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
 import ru.yandex.practicum.filmorate.exception.ObjectNotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreDbService;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
 @SpringBootTest
 @AutoConfigureTestDatabase
+@AutoConfigureMockMvc
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class GenreControllerTest {
     private final GenreDbService genreService;
+    private final MockMvc mockMvc;
     private final Genre comedy = new Genre(1, "Комедия");
     private final Genre drama = new Genre(2, "Драма");
     private final Genre cartoon = new Genre(3, "Мультфильм");
@@ -37,4 +46,43 @@ public class GenreControllerTest {
         Assertions.assertTrue(genreService.getGenres().contains(cartoon));
     }
 
+    @Test
+    public void getGenresShouldTagGzipAndIdentityBodiesDifferently() throws Exception {
+        String identityTag = mockMvc.perform(get("/genres"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String gzipTag = mockMvc.perform(get("/genres").header(HttpHeaders.ACCEPT_ENCODING, "br, GZIP;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Assertions.assertNotEquals(identityTag, gzipTag);
+        mockMvc.perform(get("/genres").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *;q=1"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, identityTag));
+        mockMvc.perform(get("/genres").header(HttpHeaders.IF_NONE_MATCH, gzipTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/genres").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, gzipTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void getGenreByIdShouldCheckIdBeforeETag() throws Exception {
+        String listTag = mockMvc.perform(get("/genres")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String comedyTag = mockMvc.perform(get("/genres/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Assertions.assertNotEquals(listTag, comedyTag);
+        mockMvc.perform(get("/genres/999").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/genres/999").header(HttpHeaders.IF_NONE_MATCH, listTag))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/genres/2").header(HttpHeaders.IF_NONE_MATCH, comedyTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/genres/1").header(HttpHeaders.IF_NONE_MATCH, comedyTag))
+                .andExpect(status().isNotModified());
+    }
 }
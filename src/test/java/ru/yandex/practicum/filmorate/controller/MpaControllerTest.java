@@ -5,16 +5,24 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
 import ru.yandex.practicum.filmorate.exception.ObjectNotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaDbService;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
 @SpringBootTest
 @AutoConfigureTestDatabase
+@AutoConfigureMockMvc
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class MpaControllerTest {
     private final MpaDbService mpaService;
+    private final MockMvc mockMvc;
     private final Mpa g = new Mpa(1, "G");
     private final Mpa pg = new Mpa(2, "PG");
     private final Mpa r = new Mpa(4, "R");
@@ -42,4 +50,18 @@ public class MpaControllerTest {
         Assertions.assertTrue(mpaService.getMpaList().contains(pg));
         Assertions.assertTrue(mpaService.getMpaList().contains(r));
     }
+
+    @Test
+    public void getMpaByIdShouldCheckIdBeforeETag() throws Exception {
+        String gTag = mockMvc.perform(get("/mpa/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/mpa/999").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/mpa/2").header(HttpHeaders.IF_NONE_MATCH, gTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/mpa/1").header(HttpHeaders.IF_NONE_MATCH, gTag))
+                .andExpect(status().isNotModified());
+    }
 }
@@ -7,21 +7,27 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.dao.DuplicateKeyException;
-import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.exception.ObjectAlreadyExistsException;
 import ru.yandex.practicum.filmorate.exception.ObjectNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.MultiGet;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserDbService;
+import ru.yandex.practicum.filmorate.storage.StorageCleaner;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @SpringBootTest
 @AutoConfigureTestDatabase
+@Import(StorageCleaner.class)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class UserControllerTest {
     private final UserDbService userService;
-    private final JdbcTemplate jdbcTemplate;
+    private final StorageCleaner storageCleaner;
 
     private final User user = new User("gg@ya.ru", "GGA",
             "Gleb", LocalDate.of(1997, 8, 4));
@@ -34,8 +40,7 @@ public class UserControllerTest {
 
     @AfterEach
     void afterEach() {
-        jdbcTemplate.execute("DELETE FROM users");
-        jdbcTemplate.execute("DELETE FROM films");
+        storageCleaner.clear();
     }
 
     @Test
@@ -51,6 +56,38 @@ public class UserControllerTest {
         Assertions.assertThrows(DuplicateKeyException.class, () -> userService.createUser(updatedUser));
     }
 
+    @Test
+    public void getUsersPageShouldReturnUsersAfterCursor() {
+        User first = userService.createUser(user);
+        User second = userService.createUser(friend);
+        User third = userService.createUser(friendOfBoth);
+        Page<User> firstPage = userService.getUsersPage(null, 2);
+        Page<User> secondPage = userService.getUsersPage(firstPage.getNextCursor(), 2);
+
+        Assertions.assertEquals(List.of(first, second), firstPage.getItems());
+        Assertions.assertEquals(second.getId(), firstPage.getNextCursor());
+        Assertions.assertEquals(List.of(third), secondPage.getItems());
+        Assertions.assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    public void getUsersPageShouldNotAcceptIncorrectLimit() {
+        Assertions.assertThrows(ValidationException.class, () -> userService.getUsersPage(null, 0));
+    }
+
+    @Test
+    public void getUsersByIdsShouldKeepRequestedOrderAndReportMissingIds() {
+        User first = userService.createUser(user);
+        User second = userService.createUser(friend);
+        long missingId = second.getId() + 100;
+        MultiGet<User> result = userService.getUsersByIds(List.of(second.getId(), missingId, first.getId(),
+                second.getId()));
+
+        Assertions.assertEquals(List.of(second, first), result.getItems());
+        Assertions.assertEquals(List.of(missingId), result.getMissingIds());
+        Assertions.assertThrows(ValidationException.class, () -> userService.getUsersByIds(List.of()));
+    }
+
     @Test
     public void updateUserShouldUpdateUser() {
         User thisUser = userService.createUser(user);
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.LoggerFactory;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+public class AsyncLogSinkTest {
+    private final Logger logger = (Logger) LoggerFactory.getLogger(AsyncLogSink.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void beforeEach() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void afterEach() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    public void stopShouldWriteBufferedRecordsWithCappedBodies() throws Exception {
+        AsyncLogSink sink = new AsyncLogSink(4, 5, 60_000);
+        sink.write(correlation("first"), request("POST", "/films", "{\"name\":\"Фильм\"}"), response(201, ""));
+        sink.write(correlation("second"), request("GET", "/films/1", ""), response(200, "abc"));
+
+        Assertions.assertTrue(messages().isEmpty(), "Записи не должны выводиться на потоке запроса");
+
+        sink.stop();
+
+        Assertions.assertEquals(List.of(
+                "first POST /films -> 201 за 7 мс запрос: {\"nam (тела обрезаны)",
+                "second GET /films/1 -> 200 за 7 мс ответ: abc"), messages());
+    }
+
+    @Test
+    public void stopShouldReportRecordsDroppedOnOverflow() throws Exception {
+        AsyncLogSink sink = new AsyncLogSink(2, 100, 60_000);
+        for (int i = 0; i < 5; i++) {
+            sink.write(correlation("id" + i), request("GET", "/films", ""), response(200, ""));
+        }
+
+        sink.stop();
+
+        Assertions.assertEquals(List.of(
+                "id0 GET /films -> 200 за 7 мс",
+                "id1 GET /films -> 200 за 7 мс",
+                "Буфер журнала HTTP переполнен, пропущено записей: 3"), messages());
+    }
+
+    private List<String> messages() {
+        return appender.list.stream()
+                .map(ILoggingEvent::getFormattedMessage)
+                .toList();
+    }
+
+    private static Correlation correlation(String id) {
+        Correlation correlation = Mockito.mock(Correlation.class);
+        Mockito.when(correlation.getId()).thenReturn(id);
+        Mockito.when(correlation.getDuration()).thenReturn(Duration.ofMillis(7));
+        return correlation;
+    }
+
+    private static HttpRequest request(String method, String uri, String body) throws Exception {
+        HttpRequest request = Mockito.mock(HttpRequest.class);
+        Mockito.when(request.getMethod()).thenReturn(method);
+        Mockito.when(request.getRequestUri()).thenReturn(uri);
+        Mockito.when(request.getBody()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static HttpResponse response(int status, String body) throws Exception {
+        HttpResponse response = Mockito.mock(HttpResponse.class);
+        Mockito.when(response.getStatus()).thenReturn(status);
+        Mockito.when(response.getBody()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        return response;
+    }
+}
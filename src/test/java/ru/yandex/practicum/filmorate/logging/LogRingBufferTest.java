@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+public class LogRingBufferTest {
+
+    @Test
+    public void constructorShouldRoundCapacityUpToPowerOfTwo() {
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(3);
+
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(buffer.offer(i));
+        }
+        Assertions.assertFalse(buffer.offer(4));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new LogRingBuffer<>(0));
+    }
+
+    @Test
+    public void drainShouldKeepOrderAcrossWrapAround() {
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(4);
+        List<Integer> drained = new ArrayList<>();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 3; i++) {
+                Assertions.assertTrue(buffer.offer(round * 3 + i));
+            }
+            Assertions.assertEquals(3, buffer.drain(drained::add));
+        }
+
+        Assertions.assertEquals(15, drained.size());
+        for (int i = 0; i < drained.size(); i++) {
+            Assertions.assertEquals(i, drained.get(i));
+        }
+        Assertions.assertEquals(0, buffer.drain(drained::add));
+    }
+
+    @Test
+    public void offerShouldDropAndCountWhenFull() {
+        LogRingBuffer<String> buffer = new LogRingBuffer<>(2);
+        buffer.offer("первая");
+        buffer.offer("вторая");
+
+        Assertions.assertFalse(buffer.offer("третья"));
+        Assertions.assertFalse(buffer.offer("четвёртая"));
+        Assertions.assertEquals(2, buffer.takeDropped());
+        Assertions.assertEquals(0, buffer.takeDropped());
+
+        List<String> drained = new ArrayList<>();
+        buffer.drain(drained::add);
+        Assertions.assertEquals(List.of("первая", "вторая"), drained);
+        Assertions.assertTrue(buffer.offer("пятая"));
+    }
+
+    @Test
+    public void concurrentWritersShouldLoseNothingButDroppedValues() throws Exception {
+        int writers = 4;
+        int perWriter = 50_000;
+        LogRingBuffer<long[]> buffer = new LogRingBuffer<>(256);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int writer = 0; writer < writers; writer++) {
+            long writerId = writer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (long sequence = 0; sequence < perWriter; sequence++) {
+                    buffer.offer(new long[]{writerId, sequence});
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        long[] lastSequence = new long[writers];
+        Arrays.fill(lastSequence, -1);
+        AtomicBoolean ordered = new AtomicBoolean(true);
+        Consumer<long[]> reader = value -> {
+            int writer = (int) value[0];
+            if (value[1] <= lastSequence[writer]) {
+                ordered.set(false);
+            }
+            lastSequence[writer] = value[1];
+        };
+        long received = 0;
+        start.countDown();
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            received += buffer.drain(reader);
+        }
+        received += buffer.drain(reader);
+
+        Assertions.assertTrue(ordered.get(), "Значения одного писателя должны приходить по порядку");
+        Assertions.assertEquals((long) writers * perWriter, received + buffer.takeDropped());
+    }
+}
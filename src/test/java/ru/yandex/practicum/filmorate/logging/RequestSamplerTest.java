@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RequestSamplerTest {
+
+    @Test
+    public void endpointShouldReplaceNumericSegments() {
+        Assertions.assertEquals("GET /films/{id}/like/{id}", RequestSampler.endpoint("GET", "/films/12/like/7"));
+        Assertions.assertEquals("GET /films/popular", RequestSampler.endpoint("GET", "/films/popular"));
+        Assertions.assertEquals("GET /films/1a", RequestSampler.endpoint("GET", "/films/1a"));
+        Assertions.assertEquals("GET /users/{id}/", RequestSampler.endpoint("GET", "/users/3/"));
+        Assertions.assertEquals("GET /", RequestSampler.endpoint("GET", "/"));
+    }
+
+    @Test
+    public void sampleShouldTakeEveryNthRequestOfEachEndpoint() {
+        RequestSampler sampler = new RequestSampler(3);
+        List<Boolean> films = new ArrayList<>();
+        for (int id = 1; id <= 7; id++) {
+            films.add(sampler.sample("GET", "/films/" + id));
+        }
+
+        Assertions.assertEquals(List.of(true, false, false, true, false, false, true), films);
+        Assertions.assertTrue(sampler.sample("PUT", "/films/1"),
+                "Первый запрос нового эндпоинта должен попасть в журнал");
+        Assertions.assertTrue(sampler.sample("GET", "/users"));
+        Assertions.assertFalse(sampler.sample("GET", "/users"));
+    }
+
+    @Test
+    public void sampleShouldLogEverythingWithRateOne() {
+        RequestSampler sampler = new RequestSampler(1);
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(sampler.sample("GET", "/films"));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RequestSampler(0));
+    }
+
+    @Test
+    public void sampleShouldShareOneCounterBeyondEndpointLimit() {
+        RequestSampler sampler = new RequestSampler(2);
+        for (int i = 0; i < 1000; i++) {
+            sampler.sample("GET", "/endpoint-" + i);
+        }
+
+        Assertions.assertTrue(sampler.sample("GET", "/first-extra"));
+        Assertions.assertFalse(sampler.sample("GET", "/second-extra"));
+        Assertions.assertTrue(sampler.sample("GET", "/third-extra"));
+    }
+}
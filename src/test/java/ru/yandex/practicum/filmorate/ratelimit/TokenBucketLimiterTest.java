@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TokenBucketLimiterTest {
+    private static final long SECOND = 1_000_000_000L;
+    private static final long MILLISECOND = 1_000_000L;
+    private static final long START = 1_000 * SECOND;
+
+    @Test
+    public void tryAcquireShouldAllowBurstThenRefillAtConfiguredRate() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 2, 600_000);
+
+        Assertions.assertEquals(0, limiter.tryAcquire(1, START));
+        Assertions.assertEquals(0, limiter.tryAcquire(1, START));
+        Assertions.assertEquals(0, limiter.tryAcquire(1, START));
+        Assertions.assertEquals(SECOND / 2, limiter.tryAcquire(1, START));
+        Assertions.assertEquals(SECOND / 4, limiter.tryAcquire(1, START + SECOND / 4));
+        Assertions.assertEquals(0, limiter.tryAcquire(1, START + SECOND / 2));
+        Assertions.assertEquals(SECOND / 2, limiter.tryAcquire(1, START + SECOND / 2));
+    }
+
+    @Test
+    public void tryAcquireShouldNotAccumulateMoreThanCapacity() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 1, 600_000);
+        limiter.tryAcquire(1, START);
+        long later = START + 60 * SECOND;
+
+        Assertions.assertEquals(0, limiter.tryAcquire(1, later));
+        Assertions.assertEquals(0, limiter.tryAcquire(1, later));
+        Assertions.assertEquals(SECOND, limiter.tryAcquire(1, later));
+    }
+
+    @Test
+    public void tryAcquireShouldKeepSeparateBucketPerUser() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 600_000);
+
+        Assertions.assertEquals(0, limiter.tryAcquire(1, START));
+        Assertions.assertTrue(limiter.tryAcquire(1, START) > 0);
+        Assertions.assertEquals(0, limiter.tryAcquire(2, START));
+    }
+
+    @Test
+    public void constructorShouldRejectNonPositiveLimits() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(0, 1, 600_000));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(1, 0, 600_000));
+    }
+
+    @Test
+    public void sweepShouldDropOnlyIdleBuckets() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1000, 0);
+        int idleUsers = 100_000;
+        for (long userId = 1; userId <= idleUsers; userId++) {
+            limiter.tryAcquire(userId, START);
+        }
+        Assertions.assertEquals(idleUsers, limiter.size());
+
+        long later = START + 10 * MILLISECOND;
+        Assertions.assertEquals(0, limiter.tryAcquire(1, later));
+        limiter.sweep(later);
+
+        Assertions.assertEquals(1, limiter.size());
+        Assertions.assertEquals(MILLISECOND, limiter.tryAcquire(1, later));
+        Assertions.assertEquals(0, limiter.tryAcquire(2, later));
+    }
+
+    @Test
+    public void newUsersShouldTriggerPeriodicSweeps() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1000, 0);
+        for (long userId = 1; userId <= 100_000; userId++) {
+            limiter.tryAcquire(userId, START + userId * 10 * MILLISECOND);
+        }
+
+        Assertions.assertTrue(limiter.size() <= 4096, () -> "Корзин осталось " + limiter.size());
+    }
+}
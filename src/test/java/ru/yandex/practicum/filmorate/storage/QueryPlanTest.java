@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmDbService;
+import ru.yandex.practicum.filmorate.service.UserDbService;
+import ru.yandex.practicum.filmorate.storage.db.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.db.like.LikeDao;
+import ru.yandex.practicum.filmorate.storage.db.user.UserDbStorage;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Выполняет сценарии, затрагивающие все запросы хранилищ, а затем повторяет каждый подготовленный запрос
+ * с параметрами под EXPLAIN. Запрос с параметрами, план которого содержит полный просмотр таблицы,
+ * считается регрессией: такие запросы должны идти по индексу. Запросы без параметров (полные выгрузки
+ * и загрузка справочников) читают таблицы целиком намеренно и не проверяются. С хранилищами в памяти
+ * (профиль memory) проверять нечего.
+ */
+@SpringBootTest
+@DisabledIfSystemProperty(named = "spring.profiles.active", matches = ".*memory.*")
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class QueryPlanTest {
+    private static final int SEED_USERS = 30;
+    private static final int SEED_FILMS = 30;
+    private final StatementRecorder recorder;
+    private final FilmDbService filmService;
+    private final UserDbService userService;
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final LikeDao likeDao;
+    private final JdbcTemplate jdbcTemplate;
+
+    @TestConfiguration
+    static class RecorderConfiguration {
+
+        @Bean
+        StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+
+        @Bean
+        static BeanPostProcessor statementRecordingPostProcessor(StatementRecorder statementRecorder) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? statementRecorder.wrap(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.execute("DELETE FROM users");
+        jdbcTemplate.execute("DELETE FROM films");
+    }
+
+    @Test
+    public void parameterizedStatementsShouldNotScanTables() {
+        recorder.clear();
+        runStorageScenarios();
+
+        List<StatementRecorder.RecordedStatement> statements = List.copyOf(recorder.getStatements());
+        List<String> scans = new ArrayList<>();
+        for (StatementRecorder.RecordedStatement statement : statements) {
+            if (statement.parameters().isEmpty()) {
+                continue;
+            }
+            String plan = explain(statement);
+            if (plan.contains("tableScan")) {
+                scans.add(statement.sql().strip() + "\n" + plan);
+            }
+        }
+
+        Assertions.assertFalse(statements.isEmpty());
+        Assertions.assertTrue(scans.isEmpty(), "Запросы с полным просмотром таблиц:\n" + String.join("\n\n", scans));
+    }
+
+    private void runStorageScenarios() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < SEED_USERS; i++) {
+            users.add(userService.createUser(new User("user" + i + "@ya.ru", "user" + i, "Пользователь " + i,
+                    LocalDate.of(1990, 1, 1).plusDays(i))));
+        }
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < SEED_FILMS; i++) {
+            Film film = new Film("Фильм " + i, "Описание " + i, LocalDate.of(2000, 1, 1).plusDays(i), 90 + i);
+            film.setMpa(new Mpa(1 + i % 5));
+            film.setGenres(Set.of(new Genre(1 + i % 6)));
+            films.add(i % 2 == 0 ? filmService.createFilm(film) : film);
+        }
+        filmService.importFilms(films.stream().filter(film -> film.getId() == null).toList());
+
+        Film film = films.get(0);
+        User user = users.get(0);
+        User friend = users.get(1);
+        for (int i = 0; i < SEED_USERS; i++) {
+            filmService.like(films.get(i % SEED_FILMS).getId(), users.get(i).getId());
+            userService.addFriend(users.get(i).getId(), users.get((i + 1) % SEED_USERS).getId());
+            userService.addFriend(users.get(i).getId(), users.get((i + 2) % SEED_USERS).getId());
+        }
+
+        film.setName("Обновлённый фильм");
+        film.setGenres(Set.of(new Genre(2), new Genre(3)));
+        filmService.updateFilm(film);
+        filmService.getFilmById(film.getId());
+        filmService.getFilmETag(film.getId());
+        filmService.getFilmsPage(film.getId(), 10);
+        filmService.getPopularMovies(10);
+        filmService.exportFilms(exported -> {
+        });
+        filmService.dislike(films.get(1).getId(), users.get(1).getId());
+        likeDao.applyChanges(List.of(new Like(film.getId(), friend.getId())),
+                List.of(new Like(film.getId(), user.getId())));
+        filmStorage.getFilmsByIds(new long[]{film.getId(), films.get(1).getId()});
+        filmStorage.getGenres(film.getId());
+        filmStorage.deleteGenres(film.getId());
+
+        user.setName("Обновлённый пользователь");
+        userService.updateUser(user);
+        userService.getUserById(user.getId());
+        userService.getUsersPage(user.getId(), 10);
+        userService.getUsersByIds(List.of(friend.getId(), user.getId()));
+        userService.exportUsers(exported -> {
+        });
+        userService.getFriendsList(user.getId());
+        userService.getCommonFriends(user.getId(), friend.getId());
+        userService.deleteFriend(user.getId(), friend.getId());
+        userStorage.isContains(user.getId());
+    }
+
+    private String explain(StatementRecorder.RecordedStatement statement) {
+        return String.join("\n", jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("EXPLAIN " + statement.sql());
+            statement.bind(ps);
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1)));
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Запоминает все подготовленные запросы, выполненные через DataSource, вместе с параметрами первого выполнения,
+ * чтобы их можно было повторить под EXPLAIN.
+ */
+public class StatementRecorder {
+    private final Map<String, RecordedStatement> statements = new ConcurrentHashMap<>();
+
+    public record ParameterCall(Method setter, Object[] args) {
+    }
+
+    public record RecordedStatement(String sql, List<ParameterCall> parameters) {
+
+        public void bind(PreparedStatement ps) throws SQLException {
+            for (ParameterCall parameter : parameters) {
+                try {
+                    parameter.setter().invoke(ps, parameter.args());
+                } catch (IllegalAccessException | InvocationTargetException exception) {
+                    throw new SQLException("Не удалось повторить параметр запроса " + sql, exception);
+                }
+            }
+        }
+    }
+
+    public Collection<RecordedStatement> getStatements() {
+        return statements.values();
+    }
+
+    public void clear() {
+        statements.clear();
+    }
+
+    public DataSource wrap(DataSource target) {
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    return result instanceof Connection connection ? wrap(connection) : result;
+                });
+    }
+
+    private Connection wrap(Connection target) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement ps) {
+                        return wrap(ps, (String) args[0]);
+                    }
+                    return result;
+                });
+    }
+
+    private PreparedStatement wrap(PreparedStatement target, String sql) {
+        List<ParameterCall> parameters = new ArrayList<>();
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        parameters.add(new ParameterCall(method, args.clone()));
+                    } else if (name.startsWith("execute") || name.equals("addBatch")) {
+                        statements.putIfAbsent(sql, new RecordedStatement(sql, List.copyOf(parameters)));
+                    } else if (name.equals("clearParameters")) {
+                        parameters.clear();
+                    }
+                    return invoke(target, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException exception) {
+            throw exception.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.index.CoLikeIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.index.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.memory.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.memory.InMemoryFriendshipDao;
+import ru.yandex.practicum.filmorate.storage.memory.InMemoryLikeDao;
+import ru.yandex.practicum.filmorate.storage.memory.InMemoryUserStorage;
+
+/**
+ * Удаляет пользователей и фильмы после теста при любом хранилище: в базе данных запросами DELETE,
+ * в памяти — очисткой хранилищ. Индексы в памяти очищаются вместе с данными, иначе в них остаются фильмы
+ * и лайки предыдущих тестов. Подключается к тестам через @Import.
+ */
+@RequiredArgsConstructor
+public class StorageCleaner {
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+    private final ObjectProvider<InMemoryLikeDao> likeDao;
+    private final ObjectProvider<InMemoryFriendshipDao> friendshipDao;
+    private final ObjectProvider<InMemoryUserStorage> userStorage;
+    private final ObjectProvider<InMemoryFilmStorage> filmStorage;
+    private final FilmSearchIndex filmSearchIndex;
+    private final CoLikeIndex coLikeIndex;
+    private final PopularityIndex popularityIndex;
+    private final FriendGraph friendGraph;
+
+    public void clear() {
+        jdbcTemplate.ifAvailable(template -> {
+            template.execute("DELETE FROM users");
+            template.execute("DELETE FROM films");
+        });
+        likeDao.ifAvailable(InMemoryLikeDao::clear);
+        friendshipDao.ifAvailable(InMemoryFriendshipDao::clear);
+        userStorage.ifAvailable(InMemoryUserStorage::clear);
+        filmStorage.ifAvailable(InMemoryFilmStorage::clear);
+        filmSearchIndex.clear();
+        coLikeIndex.clear();
+        popularityIndex.clear();
+        friendGraph.clear();
+    }
+}
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.storage.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+public class ConcurrencyLimiterPostProcessorTest {
+
+    @Test
+    public void poolShouldBeLimitedToItsSizeByDefault() {
+        HikariDataSource hikari = new HikariDataSource();
+        hikari.setMaximumPoolSize(7);
+
+        Object processed = new ConcurrencyLimiterPostProcessor(0, 1000)
+                .postProcessAfterInitialization(hikari, "dataSource");
+
+        ConcurrencyLimitingDataSource limited = Assertions.assertInstanceOf(ConcurrencyLimitingDataSource.class,
+                processed);
+        Assertions.assertEquals(7, limited.getAvailablePermits());
+        Assertions.assertSame(hikari, limited.getTargetDataSource());
+    }
+
+    @Test
+    public void configuredLimitShouldOverridePoolSize() {
+        Object processed = new ConcurrencyLimiterPostProcessor(3, 1000)
+                .postProcessAfterInitialization(new DriverManagerDataSource(), "dataSource");
+
+        Assertions.assertEquals(3, ((ConcurrencyLimitingDataSource) processed).getAvailablePermits());
+    }
+
+    @Test
+    public void proxiesAndRoutersShouldNotBeWrapped() {
+        ConcurrencyLimiterPostProcessor postProcessor = new ConcurrencyLimiterPostProcessor(0, 1000);
+        DataSource primary = new DriverManagerDataSource();
+        DataSource replica = new DriverManagerDataSource();
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        ReadRoutingDataSource router = new ReadRoutingDataSource(primary, replica, () -> true);
+        Object notDataSource = new Object();
+
+        Assertions.assertSame(proxy, postProcessor.postProcessAfterInitialization(proxy, "dataSource"));
+        Assertions.assertSame(router, postProcessor.postProcessAfterInitialization(router, "router"));
+        Assertions.assertSame(notDataSource, postProcessor.postProcessAfterInitialization(notDataSource, "other"));
+    }
+}
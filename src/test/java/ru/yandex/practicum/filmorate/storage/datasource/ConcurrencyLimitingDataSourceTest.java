@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.storage.datasource;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrencyLimitingDataSourceTest {
+
+    @Test
+    public void getConnectionShouldWaitForPermitAndTimeOut() throws Exception {
+        ConcurrencyLimitingDataSource dataSource = new ConcurrencyLimitingDataSource(pool(), 2, 50);
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        Assertions.assertEquals(0, dataSource.getAvailablePermits());
+        Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        Connection third = dataSource.getConnection();
+        second.close();
+        third.close();
+        Assertions.assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void closeShouldReleasePermitOnlyOnce() throws Exception {
+        ConcurrencyLimitingDataSource dataSource = new ConcurrencyLimitingDataSource(pool(), 1, 50);
+        Connection connection = dataSource.getConnection();
+
+        connection.close();
+        connection.close();
+
+        Assertions.assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void waitingThreadShouldGetReleasedPermit() throws Exception {
+        ConcurrencyLimitingDataSource dataSource = new ConcurrencyLimitingDataSource(pool(), 1, 10_000);
+        Connection held = dataSource.getConnection();
+        CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException exception) {
+                throw new IllegalStateException(exception);
+            }
+        });
+        while (dataSource.getQueueLength() == 0) {
+            Thread.onSpinWait();
+        }
+
+        Assertions.assertFalse(waiting.isDone());
+        held.close();
+        waiting.get(5, TimeUnit.SECONDS).close();
+        Assertions.assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void failedGetConnectionShouldReleasePermit() throws Exception {
+        DataSource failing = Mockito.mock(DataSource.class);
+        Mockito.when(failing.getConnection())
+                .thenThrow(new SQLException("База недоступна"))
+                .thenThrow(new IllegalStateException("Пул закрыт"));
+        ConcurrencyLimitingDataSource dataSource = new ConcurrencyLimitingDataSource(failing, 1, 50);
+
+        Assertions.assertThrows(SQLException.class, dataSource::getConnection);
+        Assertions.assertThrows(IllegalStateException.class, dataSource::getConnection);
+        Assertions.assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void failedCloseShouldReleasePermit() throws Exception {
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.doThrow(new SQLException("Соединение оборвано")).when(connection).close();
+        DataSource target = Mockito.mock(DataSource.class);
+        Mockito.when(target.getConnection()).thenReturn(connection);
+        ConcurrencyLimitingDataSource dataSource = new ConcurrencyLimitingDataSource(target, 1, 50);
+
+        Connection limited = dataSource.getConnection();
+        Assertions.assertThrows(SQLException.class, limited::close);
+        Assertions.assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void statementErrorsShouldPassThroughUnwrapped() throws Exception {
+        ConcurrencyLimitingDataSource dataSource = new ConcurrencyLimitingDataSource(pool(), 1, 50);
+
+        try (Connection connection = dataSource.getConnection()) {
+            Assertions.assertThrows(SQLException.class, () -> connection.createStatement().execute("SELECT nope"));
+        }
+        Assertions.assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    private static DataSource pool() {
+        return new DriverManagerDataSource("jdbc:h2:mem:limiter-" + System.nanoTime(), "sa", "");
+    }
+}
@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.storage.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.sql.DataSource;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Две независимые базы H2, в каждой таблица с её собственным именем: по тому, какое имя вернул запрос,
+ * видно, в какую базу ушла транзакция. Источник данных собирается так же, как в {@link ReadReplicaConfiguration},
+ * транзакциями управляет тот же менеджер, что и в приложении.
+ */
+public class ReadReplicaRoutingTest {
+    private static final String CLIENT = "client-1";
+    private final ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(60_000);
+    private final ReplicaLagMonitor lagMonitor = Mockito.mock(ReplicaLagMonitor.class);
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    public void setUp() {
+        DataSource primary = database("primary");
+        DataSource replica = database("replica");
+        Mockito.when(lagMonitor.isReplicaUsable()).thenReturn(true);
+        DataSource dataSource = new ReadReplicaConfiguration(60_000, 250).dataSource(primary, replica, lagMonitor);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReadRoutingDataSource.requirePrimary(false);
+    }
+
+    @Test
+    public void readOnlyTransactionShouldUseReplica() {
+        Assertions.assertEquals("replica", readOnlyTransaction.execute(status -> currentDatabase()));
+        Assertions.assertEquals("primary", writeTransaction.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    public void laggingReplicaShouldNotServeReads() {
+        Mockito.when(lagMonitor.isReplicaUsable()).thenReturn(false);
+
+        Assertions.assertEquals("primary", readOnlyTransaction.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    public void readAfterWriteShouldStickToPrimary() throws Exception {
+        MockHttpServletRequest write = request("POST", CLIENT);
+        interceptor.preHandle(write, new MockHttpServletResponse(), null);
+        writeTransaction.executeWithoutResult(status -> jdbcTemplate.update("INSERT INTO marker VALUES ('written')"));
+        interceptor.afterCompletion(write, new MockHttpServletResponse(), null, null);
+
+        MockHttpServletRequest read = request("GET", CLIENT);
+        interceptor.preHandle(read, new MockHttpServletResponse(), null);
+        Assertions.assertEquals("primary", readOnlyTransaction.execute(status -> currentDatabase()));
+        Assertions.assertEquals(Integer.valueOf(1), readOnlyTransaction.execute(status ->
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM marker", Integer.class)));
+        interceptor.afterCompletion(read, new MockHttpServletResponse(), null, null);
+
+        MockHttpServletRequest otherClient = request("GET", "client-2");
+        interceptor.preHandle(otherClient, new MockHttpServletResponse(), null);
+        Assertions.assertEquals("replica", readOnlyTransaction.execute(status -> currentDatabase()));
+        interceptor.afterCompletion(otherClient, new MockHttpServletResponse(), null, null);
+    }
+
+    @Test
+    public void streamedReadAfterWriteShouldStickToPrimary() throws Exception {
+        MockHttpServletRequest write = request("PUT", CLIENT);
+        interceptor.preHandle(write, new MockHttpServletResponse(), null);
+        interceptor.afterCompletion(write, new MockHttpServletResponse(), null, null);
+
+        MockHttpServletRequest read = request("GET", CLIENT);
+        interceptor.preHandle(read, new MockHttpServletResponse(), null);
+        interceptor.afterConcurrentHandlingStarted(read, new MockHttpServletResponse(), null);
+        Assertions.assertEquals("replica", readOnlyTransaction.execute(status -> currentDatabase()));
+
+        ServletWebRequest webRequest = new ServletWebRequest(read);
+        Callable<String> task = () -> readOnlyTransaction.execute(status -> currentDatabase());
+        String database = CompletableFuture.supplyAsync(() -> {
+            try {
+                interceptor.preProcess(webRequest, task);
+                return task.call();
+            } catch (Exception exception) {
+                throw new IllegalStateException(exception);
+            } finally {
+                interceptor.postProcess(webRequest, task, null);
+            }
+        }).get();
+
+        Assertions.assertEquals("primary", database);
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("SELECT name FROM database_name", String.class);
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + System.nanoTime()
+                + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE database_name (name VARCHAR(16))");
+        jdbcTemplate.execute("CREATE TABLE marker (note VARCHAR(16))");
+        jdbcTemplate.update("INSERT INTO database_name VALUES (?)", name);
+        return dataSource;
+    }
+
+    private static MockHttpServletRequest request(String method, String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/films");
+        request.addHeader(ReadYourWritesInterceptor.CLIENT_ID_HEADER, clientId);
+        return request;
+    }
+}
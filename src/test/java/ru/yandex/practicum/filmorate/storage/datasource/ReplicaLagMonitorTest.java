@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.storage.datasource;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Репликация в тестах не настраивается: реплика либо та же база, что и основная, либо отдельная база,
+ * до которой пульс не доходит.
+ */
+public class ReplicaLagMonitorTest {
+
+    @Test
+    public void replicaShouldBeUnusableBeforeFirstMeasurement() {
+        DataSource database = database(true);
+
+        Assertions.assertFalse(new ReplicaLagMonitor(database, database, 1000, 250).isReplicaUsable());
+    }
+
+    @Test
+    public void replicaThatSeesEveryBeatShouldBeUsable() {
+        DataSource database = database(true);
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(database, database, 1000, 250);
+
+        monitor.beat();
+
+        Assertions.assertTrue(monitor.isReplicaUsable());
+        Assertions.assertTrue(monitor.getLagMs() < 1000);
+    }
+
+    @Test
+    public void replicaWithStaleBeatShouldBeUnusable() {
+        DataSource replica = database(true);
+        new JdbcTemplate(replica).update("INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)",
+                System.currentTimeMillis() - 10_000);
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(database(true), replica, 1000, 250);
+
+        monitor.beat();
+
+        Assertions.assertFalse(monitor.isReplicaUsable());
+        Assertions.assertTrue(monitor.getLagMs() >= 10_000);
+    }
+
+    @Test
+    public void unreadableReplicaShouldBeUnusable() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(database(true), database(false), 1000, 250);
+
+        monitor.beat();
+
+        Assertions.assertFalse(monitor.isReplicaUsable());
+    }
+
+    private static DataSource database(boolean withHeartbeat) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:heartbeat-" + System.nanoTime()
+                + ";DB_CLOSE_DELAY=-1", "sa", "");
+        if (withHeartbeat) {
+            new JdbcTemplate(dataSource).execute("CREATE TABLE replica_heartbeat (id INTEGER PRIMARY KEY, "
+                    + "beat_at BIGINT NOT NULL)");
+        }
+        return dataSource;
+    }
+}
@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.storage.db.like;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import ru.yandex.practicum.filmorate.exception.InternalServiceException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmDbService;
+import ru.yandex.practicum.filmorate.service.UserDbService;
+import ru.yandex.practicum.filmorate.storage.StorageCleaner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Отложенная запись лайков поверх настоящего {@link LikeDaoImpl}. Таймер сброса выставлен на час,
+ * поэтому события попадают в базу только при явном сбросе или при старте после аварийной остановки.
+ */
+@SpringBootTest
+@DisabledIfSystemProperty(named = "spring.profiles.active", matches = ".*memory.*")
+@AutoConfigureTestDatabase
+@Import(StorageCleaner.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class WriteBehindLikeDaoTest {
+    private static final long HOUR_MS = 3_600_000;
+    private final LikeDaoImpl likeDao;
+    private final FilmDbService filmService;
+    private final UserDbService userService;
+    private final StorageCleaner storageCleaner;
+    @TempDir
+    private Path journalDir;
+    private long userId;
+    private long firstFilmId;
+    private long secondFilmId;
+
+    @BeforeEach
+    void beforeEach() {
+        userId = userService.createUser(new User("wb@yandex.ru", "writeBehind", "Отложенный",
+                LocalDate.of(1990, 1, 1))).getId();
+        firstFilmId = createFilm("Первый").getId();
+        secondFilmId = createFilm("Второй").getId();
+    }
+
+    @AfterEach
+    void afterEach() {
+        storageCleaner.clear();
+    }
+
+    @Test
+    public void flushShouldWriteCollapsedEventsToDatabase() throws Exception {
+        WriteBehindLikeDao writeBehind = writeBehind();
+        writeBehind.start();
+        writeBehind.like(firstFilmId, userId);
+        writeBehind.like(secondFilmId, userId);
+        writeBehind.dislike(secondFilmId, userId);
+
+        Assertions.assertTrue(writeBehind.isLiked(firstFilmId, userId));
+        Assertions.assertFalse(writeBehind.isLiked(secondFilmId, userId));
+        Assertions.assertFalse(likeDao.isLiked(firstFilmId, userId));
+
+        writeBehind.flush();
+
+        Assertions.assertTrue(likeDao.isLiked(firstFilmId, userId));
+        Assertions.assertFalse(likeDao.isLiked(secondFilmId, userId));
+        Assertions.assertEquals(1, filmService.getFilmById(firstFilmId).getLikeCount());
+        Assertions.assertEquals(0, filmService.getFilmById(secondFilmId).getLikeCount());
+        Assertions.assertEquals(1, segments().size(), "Записанные в базу сегменты журнала должны удаляться");
+        writeBehind.stop();
+    }
+
+    @Test
+    public void startShouldReplayJournalLeftByUncleanStop() throws Exception {
+        WriteBehindLikeDao crashed = writeBehind();
+        crashed.start();
+        crashed.like(firstFilmId, userId);
+        crashed.like(secondFilmId, userId);
+        Path segment = segments().get(0);
+        Files.write(segment, new byte[]{1, 0, 0, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        WriteBehindLikeDao restarted = writeBehind();
+        restarted.start();
+
+        Assertions.assertTrue(likeDao.isLiked(firstFilmId, userId));
+        Assertions.assertTrue(likeDao.isLiked(secondFilmId, userId));
+        Assertions.assertEquals(1, filmService.getFilmById(secondFilmId).getLikeCount());
+        restarted.stop();
+    }
+
+    @Test
+    public void replayShouldStopAtRecordWithWrongChecksum() throws Exception {
+        LikeJournal journal = new LikeJournal(journalDir, false);
+        journal.append(firstFilmId, userId, true);
+        journal.append(secondFilmId, userId, true);
+        journal.close();
+        Path segment = segments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(segment, bytes);
+
+        WriteBehindLikeDao restarted = writeBehind();
+        restarted.start();
+
+        Assertions.assertTrue(likeDao.isLiked(firstFilmId, userId));
+        Assertions.assertFalse(likeDao.isLiked(secondFilmId, userId));
+        restarted.stop();
+    }
+
+    @Test
+    public void stopShouldCloseJournalWhenFinalFlushFails() throws Exception {
+        LikeDaoImpl failingDao = Mockito.mock(LikeDaoImpl.class);
+        Mockito.doThrow(new DataAccessResourceFailureException("База недоступна"))
+                .when(failingDao).applyChanges(Mockito.any(), Mockito.any());
+        WriteBehindLikeDao failing = new WriteBehindLikeDao(failingDao, journalDir.toString(), false, 1000, 1000,
+                HOUR_MS);
+        failing.start();
+        failing.like(firstFilmId, userId);
+
+        Assertions.assertThrows(InternalServiceException.class, failing::stop);
+        Assertions.assertThrows(InternalServiceException.class, () -> failing.like(secondFilmId, userId),
+                "После остановки журнал должен быть закрыт");
+
+        WriteBehindLikeDao restarted = writeBehind();
+        restarted.start();
+
+        Assertions.assertTrue(likeDao.isLiked(firstFilmId, userId));
+        restarted.stop();
+    }
+
+    private WriteBehindLikeDao writeBehind() throws IOException {
+        return new WriteBehindLikeDao(likeDao, journalDir.toString(), false, 1000, 1000, HOUR_MS);
+    }
+
+    private Film createFilm(String name) {
+        Film film = new Film(name, "Описание", LocalDate.of(2000, 1, 1), 100);
+        film.setMpa(new Mpa(1));
+        return filmService.createFilm(film);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class CoLikeIndexTest {
+
+    @Test
+    public void getRecommendationsShouldSkipLikedFilms() {
+        CoLikeIndex index = index();
+        index.onLike(3, 1);
+        index.onLike(1, 1);
+        index.onLike(1, 2);
+        index.onLike(2, 2);
+        index.onLike(3, 2);
+
+        Assertions.assertArrayEquals(new long[]{2}, index.getRecommendations(1, 10));
+
+        index.onDislike(3, 1);
+
+        Assertions.assertArrayEquals(new long[]{2, 3}, index.getRecommendations(1, 10));
+    }
+
+    @Test
+    public void getRecommendationsShouldSeedFromLeastLikedFilms() {
+        CoLikeIndex index = index();
+        for (long filmId = 1; filmId <= 101; filmId++) {
+            index.onLike(filmId, 1);
+        }
+        for (long userId = 2; userId <= 5; userId++) {
+            index.onLike(101, userId);
+            index.onLike(200, userId);
+        }
+
+        Assertions.assertArrayEquals(new long[0], index.getRecommendations(1, 10));
+
+        index.onDislike(1, 1);
+
+        Assertions.assertArrayEquals(new long[]{200}, index.getRecommendations(1, 10));
+    }
+
+    private static CoLikeIndex index() {
+        return new CoLikeIndex(new StaticListableBeanFactory().getBeanProvider(JdbcTemplate.class));
+    }
+}
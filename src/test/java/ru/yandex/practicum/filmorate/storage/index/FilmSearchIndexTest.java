@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+
+public class FilmSearchIndexTest {
+
+    @Test
+    public void searchShouldRequireEveryWordAndExpandLastAsPrefix() {
+        FilmSearchIndex index = index();
+        index.onFilmSaved(film(1, "Красная планета", "Экспедиция на Марс"));
+        index.onFilmSaved(film(2, "Марсианин", "Красный песок и одиночество"));
+        index.onFilmSaved(film(3, "Красная палатка", "Экспедиция на Северный полюс"));
+
+        Assertions.assertArrayEquals(new long[]{1, 3}, index.search("экспедиция красн", 10));
+        Assertions.assertArrayEquals(new long[]{2, 1}, index.search("марс", 10));
+        Assertions.assertArrayEquals(new long[0], index.search("экспедиция марсианин", 10));
+    }
+
+    @Test
+    public void onFilmSavedShouldReplaceOldWords() {
+        FilmSearchIndex index = index();
+        index.onFilmSaved(film(1, "Красная планета", "Экспедиция на Марс"));
+
+        index.onFilmSaved(film(1, "Белое солнце пустыни", "Восточный вестерн"));
+
+        Assertions.assertArrayEquals(new long[0], index.search("планета", 10));
+        Assertions.assertArrayEquals(new long[]{1}, index.search("солнце пуст", 10));
+    }
+
+    private static FilmSearchIndex index() {
+        return new FilmSearchIndex(new StaticListableBeanFactory().getBeanProvider(JdbcTemplate.class));
+    }
+
+    private static Film film(long id, String name, String description) {
+        Film film = new Film(name, description, LocalDate.of(2000, 1, 1), 100);
+        film.setId(id);
+        return film;
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+public class FriendGraphTest {
+
+    @Test
+    public void intersectShouldMergeListsOfSimilarSize() {
+        long[] first = {1, 3, 5, 7, 9};
+        long[] second = {2, 3, 4, 7, 10};
+
+        Assertions.assertArrayEquals(new long[]{3, 7}, FriendGraph.intersect(first, second));
+        Assertions.assertArrayEquals(new long[]{3, 7}, FriendGraph.intersect(second, first));
+    }
+
+    @Test
+    public void intersectShouldGallopThroughMuchLargerList() {
+        long[] large = LongStream.rangeClosed(1, 1000).map(id -> id * 2).toArray();
+        long[] small = {1, 2, 501, 1000, 1999, 2000, 5000};
+
+        Assertions.assertArrayEquals(new long[]{2, 1000, 2000}, FriendGraph.intersect(small, large));
+        Assertions.assertArrayEquals(new long[]{2, 1000, 2000}, FriendGraph.intersect(large, small));
+    }
+
+    @Test
+    public void intersectShouldHandleEmptyAndDisjointLists() {
+        long[] large = LongStream.rangeClosed(1, 100).toArray();
+
+        Assertions.assertEquals(0, FriendGraph.intersect(new long[0], large).length);
+        Assertions.assertEquals(0, FriendGraph.intersect(large, new long[0]).length);
+        Assertions.assertEquals(0, FriendGraph.intersect(new long[]{0, 101}, large).length);
+    }
+
+    @Test
+    public void intersectShouldMatchNaiveIntersectionOnRandomLists() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            long[] first = randomSortedIds(random, 1 + random.nextInt(round % 2 == 0 ? 10 : 500));
+            long[] second = randomSortedIds(random, 1 + random.nextInt(5000));
+            long[] expected = Arrays.stream(first)
+                    .filter(id -> Arrays.binarySearch(second, id) >= 0)
+                    .toArray();
+
+            Assertions.assertArrayEquals(expected, FriendGraph.intersect(first, second));
+        }
+    }
+
+    @Test
+    public void getCommonFriendsShouldFollowGraphChanges() {
+        FriendGraph graph = new FriendGraph(new StaticListableBeanFactory().getBeanProvider(JdbcTemplate.class));
+        graph.addFriend(1, 3);
+        graph.addFriend(1, 4);
+        graph.addFriend(2, 4);
+        graph.addFriend(2, 3);
+
+        Assertions.assertArrayEquals(new long[]{3, 4}, graph.getCommonFriends(1, 2));
+
+        graph.deleteFriend(2, 3);
+
+        Assertions.assertArrayEquals(new long[]{4}, graph.getCommonFriends(1, 2));
+        Assertions.assertArrayEquals(new long[0], graph.getCommonFriends(1, 5));
+    }
+
+    private static long[] randomSortedIds(Random random, int size) {
+        return random.longs(size, 1, 20_000).sorted().distinct().toArray();
+    }
+}
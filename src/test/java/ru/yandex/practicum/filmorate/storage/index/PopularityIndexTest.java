@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PopularityIndexTest {
+
+    @Test
+    public void getPopularFilmsShouldFollowLikes() {
+        PopularityIndex index = index();
+        index.onFilmSaved(film(1, 1));
+        index.onFilmSaved(film(2, 1));
+        index.onLike(2, 10);
+
+        Assertions.assertArrayEquals(new long[]{2, 1}, index.getPopularFilms(1, null, null, 10));
+
+        index.onLike(1, 10);
+        index.onLike(1, 11);
+        index.onDislike(2, 10);
+
+        Assertions.assertArrayEquals(new long[]{1, 2}, index.getPopularFilms(1, null, null, 10));
+        Assertions.assertArrayEquals(new long[]{1}, index.getPopularFilms(null, 1, 2000, 1));
+    }
+
+    @Test
+    public void onFilmSavedShouldKeepFilmInRetainedBoards() {
+        PopularityIndex index = index();
+        index.onFilmSaved(film(1, 1, 2));
+
+        index.onFilmSaved(film(1, 2, 3));
+
+        Assertions.assertArrayEquals(new long[0], index.getPopularFilms(1, null, null, 10));
+        Assertions.assertArrayEquals(new long[]{1}, index.getPopularFilms(2, null, null, 10));
+        Assertions.assertArrayEquals(new long[]{1}, index.getPopularFilms(3, 1, 2000, 10));
+    }
+
+    @Test
+    public void concurrentReaderShouldNeitherMissNorRepeatMovingFilm() throws InterruptedException {
+        PopularityIndex index = index();
+        for (long filmId = 1; filmId <= 5; filmId++) {
+            index.onFilmSaved(film(filmId, 1));
+            index.onLike(filmId, 100);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            while (running.get()) {
+                index.onLike(3, 1);
+                index.onLike(3, 2);
+                index.onDislike(3, 1);
+                index.onDislike(3, 2);
+            }
+        });
+        writer.start();
+        try {
+            for (int read = 0; read < 100_000; read++) {
+                long[] popular = index.getPopularFilms(1, null, null, 10);
+                Assertions.assertEquals(5, popular.length, () -> Arrays.toString(popular));
+                Assertions.assertEquals(5, Arrays.stream(popular).distinct().count(), () -> Arrays.toString(popular));
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    private static PopularityIndex index() {
+        return new PopularityIndex(new StaticListableBeanFactory().getBeanProvider(JdbcTemplate.class));
+    }
+
+    private static Film film(long id, int... genreIds) {
+        Film film = new Film("Фильм " + id, "Описание", LocalDate.of(2000, 1, 1), 100);
+        film.setId(id);
+        film.setMpa(new Mpa(1));
+        film.setGenres(new LinkedHashSet<>(Arrays.stream(genreIds).mapToObj(Genre::new).toList()));
+        return film;
+    }
+}
@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.EOFException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CatalogJournalTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void replayShouldStopBeforeTruncatedRecord() throws Exception {
+        writeLikes(3);
+        Path segment = directory.resolve("catalog-1.journal");
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        RecordingListener listener = replay(0);
+
+        Assertions.assertEquals(List.of("like 1 1", "like 2 1"), listener.changes);
+    }
+
+    @Test
+    public void replayShouldStopBeforeRecordWithWrongChecksum() throws Exception {
+        writeLikes(3);
+        Path segment = directory.resolve("catalog-1.journal");
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(segment, bytes);
+
+        RecordingListener listener = replay(0);
+
+        Assertions.assertEquals(List.of("like 1 1", "like 2 1"), listener.changes);
+    }
+
+    @Test
+    public void replayShouldSkipSegmentsBeforeSnapshot() throws Exception {
+        CatalogJournal journal = new CatalogJournal(directory.toString(), false);
+        journal.onLike(1, 1);
+        long firstSegment = journal.rotate();
+        journal.onDislike(1, 1);
+        journal.onFriendAdded(1, 2);
+        journal.close();
+
+        CatalogJournal restarted = new CatalogJournal(directory.toString(), false);
+        RecordingListener listener = new RecordingListener();
+        long replayed = restarted.replay(firstSegment, listener);
+        restarted.close();
+
+        Assertions.assertEquals(2, replayed);
+        Assertions.assertEquals(List.of("dislike 1 1", "friend 1 2"), listener.changes);
+    }
+
+    @Test
+    public void replayShouldIgnoreSegmentOfCurrentRun() throws Exception {
+        CatalogJournal journal = new CatalogJournal(directory.toString(), false);
+        journal.onLike(1, 1);
+        RecordingListener listener = new RecordingListener();
+
+        Assertions.assertEquals(0, journal.replay(0, listener));
+        Assertions.assertFalse(journal.isSegmentEmpty());
+        journal.close();
+    }
+
+    @Test
+    public void mappedFileShouldCrossWindowBoundary() throws Exception {
+        Path path = directory.resolve("mapped");
+        long[] values = new long[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 31L;
+        }
+        try (MappedFileWriter writer = new MappedFileWriter(path)) {
+            writer.put(ByteBuffer.allocate(MappedFileWriter.WINDOW_SIZE - 2));
+            writer.putLong(Long.MAX_VALUE);
+            writer.putLongs(values);
+            writer.putInt(42);
+            writer.finish();
+        }
+
+        Assertions.assertEquals(MappedFileWriter.WINDOW_SIZE - 2 + Long.BYTES * (1 + values.length) + Integer.BYTES,
+                Files.size(path));
+        try (MappedFileReader reader = new MappedFileReader(path)) {
+            Assertions.assertEquals(MappedFileWriter.WINDOW_SIZE - 2, reader.slice(MappedFileWriter.WINDOW_SIZE - 2)
+                    .remaining());
+            Assertions.assertEquals(Long.MAX_VALUE, reader.getLong());
+            Assertions.assertArrayEquals(values, reader.getLongs(values.length));
+            Assertions.assertEquals(42, reader.getInt());
+            Assertions.assertEquals(0, reader.remaining());
+            Assertions.assertThrows(EOFException.class, reader::getInt);
+        }
+    }
+
+    private void writeLikes(int count) throws Exception {
+        CatalogJournal journal = new CatalogJournal(directory.toString(), false);
+        for (int filmId = 1; filmId <= count; filmId++) {
+            journal.onLike(filmId, 1);
+        }
+        journal.close();
+    }
+
+    private RecordingListener replay(long fromSegment) throws Exception {
+        CatalogJournal journal = new CatalogJournal(directory.toString(), false);
+        RecordingListener listener = new RecordingListener();
+        journal.replay(fromSegment, listener);
+        journal.close();
+        return listener;
+    }
+
+    private static final class RecordingListener implements CatalogChangeListener {
+        private final List<String> changes = new ArrayList<>();
+
+        @Override
+        public void onUserSaved(User user) {
+            changes.add("user " + user.getId());
+        }
+
+        @Override
+        public void onFilmChanged(Film film, long version) {
+            changes.add("film " + film.getId() + " " + version);
+        }
+
+        @Override
+        public void onLike(long filmId, long userId) {
+            changes.add("like " + filmId + " " + userId);
+        }
+
+        @Override
+        public void onDislike(long filmId, long userId) {
+            changes.add("dislike " + filmId + " " + userId);
+        }
+
+        @Override
+        public void onFriendAdded(long userId, long friendId) {
+            changes.add("friend " + userId + " " + friendId);
+        }
+
+        @Override
+        public void onFriendDeleted(long userId, long friendId) {
+            changes.add("unfriend " + userId + " " + friendId);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.db.film.FilmListener;
+import ru.yandex.practicum.filmorate.storage.db.like.LikeListener;
+import ru.yandex.practicum.filmorate.storage.index.CoLikeIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.index.PopularityIndex;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Снимок каталога и восстановление по снимку и журналу на хранилищах в памяти, собранных без контекста Spring.
+ */
+public class CatalogSnapshotTest {
+    private static final long HOUR_MS = 3_600_000;
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void snapshotShouldRestoreSavedCatalog() throws Exception {
+        Catalog saved = new Catalog(List.of());
+        seed(saved);
+        Path path = directory.resolve("catalog.snapshot");
+        CatalogSnapshot.write(path, 7, saved.users, saved.films, saved.likes, saved.friendGraph);
+
+        Catalog restored = new Catalog(List.of());
+        long firstSegment = CatalogSnapshot.read(path, restored.loader());
+        restored.likes.recountLikes();
+
+        Assertions.assertEquals(7, firstSegment);
+        assertSameCatalog(saved, restored);
+    }
+
+    @Test
+    public void readShouldReturnZeroWithoutSnapshot() throws Exception {
+        Catalog restored = new Catalog(List.of());
+
+        Assertions.assertEquals(0, CatalogSnapshot.read(directory.resolve("catalog.snapshot"), restored.loader()));
+        Assertions.assertTrue(restored.users.getUsers().isEmpty());
+    }
+
+    @Test
+    public void restartShouldReplayChangesMadeDuringAndAfterSnapshot() throws Exception {
+        CatalogJournal journal = new CatalogJournal(directory.toString(), false);
+        Catalog saved = new Catalog(List.of(journal));
+        seed(saved);
+
+        // Та же последовательность, что в CatalogSnapshotManager.snapshot(), с изменениями между её шагами.
+        long firstSegment = journal.rotate();
+        saved.likes.like(2L, 2L);
+        saved.likes.dislike(1L, 1L);
+        CatalogSnapshot.write(directory.resolve("catalog.snapshot"), firstSegment, saved.users, saved.films,
+                saved.likes, saved.friendGraph);
+        journal.deleteBefore(firstSegment);
+        saved.friendships.deleteFriend(1L, 2L);
+        User renamed = saved.users.getUserById(2L);
+        renamed.setName("Переименован");
+        saved.users.updateUser(renamed);
+        saved.likes.like(1L, 2L);
+        journal.close();
+
+        Catalog restored = new Catalog(List.of());
+        CatalogJournal restartedJournal = new CatalogJournal(directory.toString(), false);
+        CatalogSnapshotManager manager = new CatalogSnapshotManager(restored.users, restored.films, restored.likes,
+                restored.friendGraph, restartedJournal, List.of(), directory.toString(), HOUR_MS);
+        manager.start();
+        try {
+            assertSameCatalog(saved, restored);
+        } finally {
+            manager.stop();
+            restartedJournal.close();
+        }
+    }
+
+    @Test
+    public void restartShouldFillIndexesOnFirstReadAndCountEveryLikeOnce() throws Exception {
+        Catalog saved = new Catalog(List.of());
+        seed(saved);
+        saved.films.addGenres(2L, Set.of(new Genre(1)));
+        CatalogSnapshot.write(directory.resolve("catalog.snapshot"), 0, saved.users, saved.films, saved.likes,
+                saved.friendGraph);
+
+        CoLikeIndex coLikeIndex = new CoLikeIndex(noDatabase());
+        PopularityIndex popularityIndex = new PopularityIndex(noDatabase());
+        FilmSearchIndex filmSearchIndex = new FilmSearchIndex(noDatabase());
+        Catalog restored = new Catalog(List.of(), List.of(popularityIndex, filmSearchIndex),
+                List.of(coLikeIndex, popularityIndex));
+        CatalogJournal journal = new CatalogJournal(directory.toString(), false);
+        CatalogSnapshotManager manager = new CatalogSnapshotManager(restored.users, restored.films, restored.likes,
+                restored.friendGraph, journal, List.of(coLikeIndex, popularityIndex, filmSearchIndex),
+                directory.toString(), HOUR_MS);
+        manager.start();
+        try {
+            Assertions.assertTrue(popularityIndex.getDeferredFill().isPending());
+            restored.users.createUser(new User("third@mail.ru", "third", "Третий", LocalDate.of(2000, 2, 2)));
+            // лайк до заполнения пропускается индексами и попадает в них из хранилища
+            restored.likes.like(1L, 2L);
+
+            Assertions.assertArrayEquals(new long[]{1, 2}, popularityIndex.getPopularFilms(1, null, null, 10));
+            Assertions.assertFalse(popularityIndex.getDeferredFill().isPending());
+
+            restored.likes.like(2L, 2L);
+            restored.likes.like(2L, 3L);
+
+            Assertions.assertArrayEquals(new long[]{2, 1}, popularityIndex.getPopularFilms(1, null, null, 10));
+            Assertions.assertArrayEquals(new long[]{1}, coLikeIndex.getRecommendations(3, 10));
+            Assertions.assertArrayEquals(new long[]{2}, filmSearchIndex.search("другой", 10));
+        } finally {
+            manager.stop();
+            journal.close();
+        }
+    }
+
+    private static void seed(Catalog catalog) {
+        catalog.users.createUser(new User("first@mail.ru", "first", "Первый", LocalDate.of(1990, 1, 1)));
+        catalog.users.createUser(new User("second@mail.ru", "second", null, LocalDate.of(1995, 5, 5)));
+        Film first = new Film("Фильм", "Описание", LocalDate.of(2000, 1, 1), 100);
+        first.setMpa(new Mpa(1));
+        catalog.films.createFilm(first);
+        catalog.films.addGenres(first.getId(), Set.of(new Genre(1), new Genre(2)));
+        Film second = new Film("Другой фильм", "Описание", LocalDate.of(2010, 1, 1), 90);
+        second.setMpa(new Mpa(3));
+        catalog.films.createFilm(second);
+        catalog.likes.like(1L, 1L);
+        catalog.likes.like(2L, 1L);
+        catalog.friendships.addFriend(1L, 2L, false);
+    }
+
+    private static void assertSameCatalog(Catalog expected, Catalog actual) {
+        Assertions.assertEquals(expected.users.getUsers(), actual.users.getUsers());
+        Assertions.assertEquals(expected.films.getFilms(), actual.films.getFilms());
+        for (Film film : expected.films.getFilms()) {
+            Assertions.assertEquals(film.getLikeCount(), actual.films.getFilmById(film.getId()).getLikeCount());
+            Assertions.assertEquals(expected.films.getFilmETag(film.getId()),
+                    actual.films.getFilmETag(film.getId()));
+        }
+        Assertions.assertEquals(likesOf(expected), likesOf(actual));
+        for (User user : expected.users.getUsers()) {
+            Assertions.assertArrayEquals(expected.friendGraph.getFriends(user.getId()),
+                    actual.friendGraph.getFriends(user.getId()));
+        }
+    }
+
+    private static ObjectProvider<JdbcTemplate> noDatabase() {
+        return new StaticListableBeanFactory().getBeanProvider(JdbcTemplate.class);
+    }
+
+    private static Map<Long, List<Long>> likesOf(Catalog catalog) {
+        Map<Long, List<Long>> likes = new HashMap<>();
+        catalog.likes.forEachUserLikes((userId, filmIds) ->
+                likes.put(userId, Arrays.stream(filmIds).sorted().boxed().toList()));
+        return likes;
+    }
+
+    private static final class Catalog {
+        private final FriendGraph friendGraph =
+                new FriendGraph(new StaticListableBeanFactory().getBeanProvider(JdbcTemplate.class));
+        private final InMemoryUserStorage users;
+        private final InMemoryFilmStorage films;
+        private final InMemoryLikeDao likes;
+        private final InMemoryFriendshipDao friendships;
+
+        Catalog(List<CatalogChangeListener> changeListeners) {
+            this(changeListeners, List.of(), List.of());
+        }
+
+        Catalog(List<CatalogChangeListener> changeListeners, List<FilmListener> filmListeners,
+                List<LikeListener> likeListeners) {
+            users = new InMemoryUserStorage(friendGraph, changeListeners);
+            films = new InMemoryFilmStorage(new InMemoryGenreDao(), new InMemoryMpaDao(), filmListeners,
+                    changeListeners);
+            likes = new InMemoryLikeDao(films, users, likeListeners, changeListeners);
+            friendships = new InMemoryFriendshipDao(users, friendGraph, changeListeners);
+        }
+
+        CatalogSnapshot.Loader loader() {
+            return new CatalogSnapshot.Loader() {
+                @Override
+                public void user(User user) {
+                    users.restoreUser(user);
+                }
+
+                @Override
+                public void film(Film film, long version) {
+                    films.restoreFilm(film, version);
+                }
+
+                @Override
+                public void likes(long userId, long[] filmIds) {
+                    likes.restoreLikes(userId, filmIds);
+                }
+
+                @Override
+                public void friends(long userId, long[] friendIds) {
+                    friendGraph.setFriends(userId, friendIds);
+                }
+            };
+        }
+    }
+}
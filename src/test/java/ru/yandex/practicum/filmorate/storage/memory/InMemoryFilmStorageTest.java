@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.StorageCleaner;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@Import(StorageCleaner.class)
+@EnabledIfSystemProperty(named = "spring.profiles.active", matches = ".*memory.*")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class InMemoryFilmStorageTest {
+    private final InMemoryFilmStorage filmStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final StorageCleaner storageCleaner;
+
+    @AfterEach
+    void afterEach() {
+        storageCleaner.clear();
+    }
+
+    @Test
+    public void getPopularMoviesShouldFollowLikeCounts() {
+        Film first = filmStorage.createFilm(film("Первый"));
+        Film second = filmStorage.createFilm(film("Второй"));
+        Film third = filmStorage.createFilm(film("Третий"));
+        filmStorage.changeLikeCount(third.getId(), 2);
+        filmStorage.changeLikeCount(second.getId(), 1);
+
+        Assertions.assertEquals(List.of(third.getId(), second.getId()), ids(filmStorage.getPopularMovies(2)));
+
+        filmStorage.changeLikeCount(third.getId(), -2);
+
+        Assertions.assertEquals(List.of(second.getId(), first.getId(), third.getId()),
+                ids(filmStorage.getPopularMovies(10)));
+    }
+
+    @Test
+    public void failedTransactionShouldKeepWritesMadeBeforeFailure() {
+        Film film = film("Без отката");
+
+        Assertions.assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            filmStorage.createFilm(film);
+            throw new IllegalStateException("Сбой после записи");
+        }));
+
+        Assertions.assertEquals("Без отката", filmStorage.getFilmById(film.getId()).getName());
+    }
+
+    private static Film film(String name) {
+        Film film = new Film(name, "Описание", LocalDate.of(2000, 1, 1), 100);
+        film.setMpa(new Mpa(1));
+        return film;
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+}
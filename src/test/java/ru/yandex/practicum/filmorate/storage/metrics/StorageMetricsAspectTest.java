@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.storage.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class StorageMetricsAspectTest {
+
+    @Test
+    public void countRowsShouldCountContainerSizes() {
+        Assertions.assertEquals(2, StorageMetricsAspect.countRows(List.of(1, 2)));
+        Assertions.assertEquals(3, StorageMetricsAspect.countRows(Map.of(1L, 1L, 2L, 2L, 3L, 3L)));
+        Assertions.assertEquals(4, StorageMetricsAspect.countRows(new long[4]));
+        Assertions.assertEquals(5, StorageMetricsAspect.countRows(new int[5]));
+        Assertions.assertEquals(1, StorageMetricsAspect.countRows(new Genre[1]));
+    }
+
+    @Test
+    public void countRowsShouldReturnZeroForEmptyResults() {
+        Assertions.assertEquals(0, StorageMetricsAspect.countRows(List.of()));
+        Assertions.assertEquals(0, StorageMetricsAspect.countRows(Map.of()));
+        Assertions.assertEquals(0, StorageMetricsAspect.countRows(Optional.empty()));
+        Assertions.assertEquals(0, StorageMetricsAspect.countRows(new long[0]));
+    }
+
+    @Test
+    public void countRowsShouldCountSingleObjectAndSkipVoidAndFlags() {
+        Assertions.assertEquals(1, StorageMetricsAspect.countRows(new Genre(1)));
+        Assertions.assertEquals(1, StorageMetricsAspect.countRows(Optional.of(new Genre(1))));
+        Assertions.assertEquals(-1, StorageMetricsAspect.countRows(null));
+        Assertions.assertEquals(-1, StorageMetricsAspect.countRows(true));
+    }
+}